@@ -9,11 +9,8 @@ package com.crio.qeats;
 
 import com.crio.qeats.globals.GlobalConstants;
 import lombok.extern.log4j.Log4j2;
-import org.modelmapper.ModelMapper;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Scope;
 
 @SpringBootApplication
 @Log4j2
@@ -27,15 +24,4 @@ public class QEatsApplication {
     log.info("Congrats! Your QEatsApplication server has started");
   }
 
-  /**
-   * Fetches a ModelMapper instance.
-   *
-   * @return ModelMapper
-   */
-  @Bean // Want a new obj every time
-  @Scope("prototype")
-  public ModelMapper modelMapper() {
-    return new ModelMapper();
-  }
-
 }
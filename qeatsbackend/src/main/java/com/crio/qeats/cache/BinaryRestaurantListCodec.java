@@ -0,0 +1,324 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import com.crio.qeats.dto.Restaurant;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Compact, versioned binary form of restaurant lists.
+ *
+ * <p>Layout: magic byte, version, flags, then the body, deflated when it is larger than the
+ * compression threshold (flag {@link #FLAG_DEFLATED}, preceded by the inflated length).
+ * The body is a dictionary of the strings that repeat across restaurants (cities, attributes,
+ * opening and closing times) followed by the restaurants, each starting with a bitmask of the
+ * fields present. Dictionary references are stored as index + 1, 0 meaning null. Integers are
+ * unsigned varints, strings are a varint length followed by UTF-8 bytes.</p>
+ */
+@Log4j2
+public class BinaryRestaurantListCodec implements RestaurantListCodec {
+
+  static final byte MAGIC = 'Q';
+  static final byte VERSION = 1;
+  static final int FLAG_DEFLATED = 1;
+
+  private static final int HAS_ID = 1;
+  private static final int ID_IS_RESTAURANT_ID = 1 << 1;
+  private static final int HAS_RESTAURANT_ID = 1 << 2;
+  private static final int HAS_NAME = 1 << 3;
+  private static final int HAS_IMAGE_URL = 1 << 4;
+  private static final int HAS_LATITUDE = 1 << 5;
+  private static final int HAS_LONGITUDE = 1 << 6;
+  private static final int HAS_ATTRIBUTES = 1 << 7;
+
+  // Guards against allocating huge buffers when reading a corrupted entry.
+  private static final int MAX_INFLATED_LENGTH = 64 * 1024 * 1024;
+
+  private final int compressionThresholdInBytes;
+
+  /**
+   * Creates the codec.
+   * @param compressionThresholdInBytes bodies larger than this are deflated, a negative value
+   *     disables compression
+   */
+  public BinaryRestaurantListCodec(int compressionThresholdInBytes) {
+    this.compressionThresholdInBytes = compressionThresholdInBytes;
+  }
+
+  @Override
+  public byte[] encode(List<Restaurant> restaurants) {
+    try {
+      byte[] body = encodeBody(restaurants);
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length + 8);
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeByte(MAGIC);
+      out.writeByte(VERSION);
+      byte[] deflated = compressionThresholdInBytes >= 0
+          && body.length > compressionThresholdInBytes ? deflate(body) : null;
+      if (deflated != null && deflated.length < body.length) {
+        out.writeByte(FLAG_DEFLATED);
+        writeVarint(out, body.length);
+        out.write(deflated);
+      } else {
+        out.writeByte(0);
+        out.write(body);
+      }
+      out.flush();
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public List<Restaurant> decode(byte[] bytes) {
+    if (bytes.length < 3 || bytes[0] != MAGIC || bytes[1] != VERSION) {
+      return null;
+    }
+    try {
+      byte[] body;
+      if ((bytes[2] & FLAG_DEFLATED) != 0) {
+        DataInputStream in = new DataInputStream(
+            new ByteArrayInputStream(bytes, 3, bytes.length - 3));
+        int inflatedLength = readVarint(in);
+        int offset = bytes.length - in.available();
+        body = inflate(bytes, offset, bytes.length - offset, inflatedLength);
+      } else {
+        body = new byte[bytes.length - 3];
+        System.arraycopy(bytes, 3, body, 0, body.length);
+      }
+      return decodeBody(body);
+    } catch (IOException | DataFormatException | RuntimeException e) {
+      log.warn("Could not decode cached restaurant list", e);
+      return null;
+    }
+  }
+
+  private byte[] encodeBody(List<Restaurant> restaurants) throws IOException {
+    Map<String, Integer> dictionary = new LinkedHashMap<>();
+    for (Restaurant restaurant : restaurants) {
+      addToDictionary(dictionary, restaurant.getCity());
+      addToDictionary(dictionary, restaurant.getOpensAt());
+      addToDictionary(dictionary, restaurant.getClosesAt());
+      if (restaurant.getAttributes() != null) {
+        for (String attribute : restaurant.getAttributes()) {
+          addToDictionary(dictionary, attribute);
+        }
+      }
+    }
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + restaurants.size() * 96);
+    DataOutputStream out = new DataOutputStream(bytes);
+    writeVarint(out, dictionary.size());
+    for (String value : dictionary.keySet()) {
+      writeString(out, value);
+    }
+
+    writeVarint(out, restaurants.size());
+    for (Restaurant restaurant : restaurants) {
+      int fields = fieldsOf(restaurant);
+      writeVarint(out, fields);
+      if ((fields & HAS_ID) != 0 && (fields & ID_IS_RESTAURANT_ID) == 0) {
+        writeString(out, restaurant.getId());
+      }
+      if ((fields & HAS_RESTAURANT_ID) != 0) {
+        writeString(out, restaurant.getRestaurantId());
+      }
+      if ((fields & HAS_NAME) != 0) {
+        writeString(out, restaurant.getName());
+      }
+      writeReference(out, dictionary, restaurant.getCity());
+      if ((fields & HAS_IMAGE_URL) != 0) {
+        writeString(out, restaurant.getImageUrl());
+      }
+      if ((fields & HAS_LATITUDE) != 0) {
+        out.writeDouble(restaurant.getLatitude());
+      }
+      if ((fields & HAS_LONGITUDE) != 0) {
+        out.writeDouble(restaurant.getLongitude());
+      }
+      writeReference(out, dictionary, restaurant.getOpensAt());
+      writeReference(out, dictionary, restaurant.getClosesAt());
+      if ((fields & HAS_ATTRIBUTES) != 0) {
+        writeVarint(out, restaurant.getAttributes().size());
+        for (String attribute : restaurant.getAttributes()) {
+          writeReference(out, dictionary, attribute);
+        }
+      }
+    }
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  private List<Restaurant> decodeBody(byte[] body) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+    String[] dictionary = new String[readVarint(in)];
+    for (int i = 0; i < dictionary.length; i++) {
+      dictionary[i] = readString(in);
+    }
+
+    int count = readVarint(in);
+    List<Restaurant> restaurants = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      int fields = readVarint(in);
+      Restaurant restaurant = new Restaurant();
+      String id = (fields & HAS_ID) != 0 && (fields & ID_IS_RESTAURANT_ID) == 0
+          ? readString(in) : null;
+      if ((fields & HAS_RESTAURANT_ID) != 0) {
+        restaurant.setRestaurantId(readString(in));
+      }
+      restaurant.setId((fields & ID_IS_RESTAURANT_ID) != 0 ? restaurant.getRestaurantId() : id);
+      if ((fields & HAS_NAME) != 0) {
+        restaurant.setName(readString(in));
+      }
+      restaurant.setCity(readReference(in, dictionary));
+      if ((fields & HAS_IMAGE_URL) != 0) {
+        restaurant.setImageUrl(readString(in));
+      }
+      if ((fields & HAS_LATITUDE) != 0) {
+        restaurant.setLatitude(in.readDouble());
+      }
+      if ((fields & HAS_LONGITUDE) != 0) {
+        restaurant.setLongitude(in.readDouble());
+      }
+      restaurant.setOpensAt(readReference(in, dictionary));
+      restaurant.setClosesAt(readReference(in, dictionary));
+      if ((fields & HAS_ATTRIBUTES) != 0) {
+        int attributeCount = readVarint(in);
+        List<String> attributes = new ArrayList<>(attributeCount);
+        for (int j = 0; j < attributeCount; j++) {
+          attributes.add(readReference(in, dictionary));
+        }
+        restaurant.setAttributes(attributes);
+      }
+      restaurants.add(restaurant);
+    }
+    return restaurants;
+  }
+
+  private static int fieldsOf(Restaurant restaurant) {
+    int fields = 0;
+    if (restaurant.getId() != null) {
+      fields |= HAS_ID;
+      if (restaurant.getId().equals(restaurant.getRestaurantId())) {
+        fields |= ID_IS_RESTAURANT_ID;
+      }
+    }
+    fields |= restaurant.getRestaurantId() != null ? HAS_RESTAURANT_ID : 0;
+    fields |= restaurant.getName() != null ? HAS_NAME : 0;
+    fields |= restaurant.getImageUrl() != null ? HAS_IMAGE_URL : 0;
+    fields |= restaurant.getLatitude() != null ? HAS_LATITUDE : 0;
+    fields |= restaurant.getLongitude() != null ? HAS_LONGITUDE : 0;
+    fields |= restaurant.getAttributes() != null ? HAS_ATTRIBUTES : 0;
+    return fields;
+  }
+
+  private static void addToDictionary(Map<String, Integer> dictionary, String value) {
+    if (value != null && !dictionary.containsKey(value)) {
+      dictionary.put(value, dictionary.size());
+    }
+  }
+
+  private static void writeReference(DataOutputStream out, Map<String, Integer> dictionary,
+      String value) throws IOException {
+    writeVarint(out, value == null ? 0 : dictionary.get(value) + 1);
+  }
+
+  private static String readReference(DataInputStream in, String[] dictionary)
+      throws IOException {
+    int reference = readVarint(in);
+    return reference == 0 ? null : dictionary[reference - 1];
+  }
+
+  static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+    writeVarint(out, utf8.length);
+    out.write(utf8);
+  }
+
+  static String readString(DataInputStream in) throws IOException {
+    byte[] utf8 = new byte[readVarint(in)];
+    in.readFully(utf8);
+    return new String(utf8, StandardCharsets.UTF_8);
+  }
+
+  static void writeVarint(DataOutputStream out, int value) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      out.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte(value);
+  }
+
+  static int readVarint(DataInputStream in) throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      int b = in.readUnsignedByte();
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed varint");
+  }
+
+  private static byte[] deflate(byte[] body) {
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try {
+      deflater.setInput(body);
+      deflater.finish();
+      ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 2);
+      byte[] buffer = new byte[4096];
+      while (!deflater.finished()) {
+        out.write(buffer, 0, deflater.deflate(buffer));
+      }
+      return out.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static byte[] inflate(byte[] bytes, int offset, int length, int inflatedLength)
+      throws DataFormatException, IOException {
+    if (inflatedLength < 0 || inflatedLength > MAX_INFLATED_LENGTH) {
+      throw new IOException("Invalid inflated length " + inflatedLength);
+    }
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(bytes, offset, length);
+      byte[] body = new byte[inflatedLength];
+      int read = 0;
+      while (read < inflatedLength && !inflater.finished()) {
+        int inflated = inflater.inflate(body, read, inflatedLength - read);
+        if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        read += inflated;
+      }
+      if (read != inflatedLength) {
+        throw new IOException("Truncated deflated entry");
+      }
+      return body;
+    } finally {
+      inflater.end();
+    }
+  }
+}
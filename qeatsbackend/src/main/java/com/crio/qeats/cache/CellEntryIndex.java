@@ -0,0 +1,115 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import ch.hsr.geohash.GeoHash;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Reverse indexes of a cache of per-cell entries, so that a changed restaurant finds the
+ * entries it may be stale in or missing from without scanning the cache: those listing it,
+ * and those of the cells it can be served to from its location.
+ * Not thread-safe; the cache updates it together with its entries under one lock.
+ * @param <K> key of the cache entries
+ */
+class CellEntryIndex<K> {
+
+  // Geohash areas about 20 km across or more, wider than any serving radius plus a cell: the
+  // cells within reach of a location all lie in its area or an adjacent one.
+  private static final int AREA_PRECISION = 4;
+
+  private final Function<K, CellKey> cellKeyOf;
+
+  private final Map<String, Set<K>> keysByRestaurantId = new HashMap<>();
+
+  private final Map<String, Set<K>> keysByArea = new HashMap<>();
+
+  CellEntryIndex(Function<K, CellKey> cellKeyOf) {
+    this.cellKeyOf = cellKeyOf;
+  }
+
+  /**
+   * Indexes an entry stored under the key.
+   */
+  void add(K key, Collection<String> restaurantIds) {
+    for (String restaurantId : restaurantIds) {
+      keysByRestaurantId.computeIfAbsent(restaurantId, id -> new HashSet<>()).add(key);
+    }
+    keysByArea.computeIfAbsent(getArea(cellKeyOf.apply(key).getCell()), area -> new HashSet<>())
+        .add(key);
+  }
+
+  /**
+   * Unindexes an entry removed from under the key.
+   * @param removedIds restaurants of the removed entry
+   * @param currentIds restaurants of the entry now stored under the key, or null if none is
+   */
+  void remove(K key, Collection<String> removedIds, Collection<String> currentIds) {
+    Set<String> kept = currentIds == null ? null : new HashSet<>(currentIds);
+    for (String restaurantId : removedIds) {
+      if (kept == null || !kept.contains(restaurantId)) {
+        removeFrom(keysByRestaurantId, restaurantId, key);
+      }
+    }
+    if (kept == null) {
+      removeFrom(keysByArea, getArea(cellKeyOf.apply(key).getCell()), key);
+    }
+  }
+
+  /**
+   * Keys of the entries listing the restaurant, or of the cells within reach of its location
+   * when known.
+   */
+  Set<K> findKeys(String restaurantId, Double latitude, Double longitude) {
+    Set<K> keys = new HashSet<>(keysByRestaurantId.getOrDefault(restaurantId,
+        Collections.emptySet()));
+    if (latitude == null || longitude == null) {
+      return keys;
+    }
+    GeoHash area = GeoHash.withCharacterPrecision(latitude, longitude, AREA_PRECISION);
+    addKeysWithinReach(keys, area, latitude, longitude);
+    for (GeoHash adjacent : area.getAdjacent()) {
+      addKeysWithinReach(keys, adjacent, latitude, longitude);
+    }
+    return keys;
+  }
+
+  void clear() {
+    keysByRestaurantId.clear();
+    keysByArea.clear();
+  }
+
+  private void addKeysWithinReach(Set<K> keys, GeoHash area, double latitude,
+      double longitude) {
+    Set<K> keysInArea = keysByArea.get(area.toBase32());
+    if (keysInArea == null) {
+      return;
+    }
+    for (K key : keysInArea) {
+      if (cellKeyOf.apply(key).isWithinReach(latitude, longitude)) {
+        keys.add(key);
+      }
+    }
+  }
+
+  private static String getArea(GeoHash cell) {
+    return cell.toBase32().substring(0, AREA_PRECISION);
+  }
+
+  private static <K> void removeFrom(Map<String, Set<K>> index, String name, K key) {
+    Set<K> keys = index.get(name);
+    if (keys != null && keys.remove(key) && keys.isEmpty()) {
+      index.remove(name);
+    }
+  }
+}
@@ -0,0 +1,40 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import ch.hsr.geohash.GeoHash;
+import com.crio.qeats.utils.GeoUtils;
+import lombok.Value;
+
+/**
+ * Key of the restaurants cached for a geohash cell, with a serving radius, during a fifteen
+ * minute slot of the day.
+ */
+@Value
+public class CellKey {
+
+  GeoHash cell;
+
+  double servingRadiusInKms;
+
+  int slot;
+
+  /**
+   * Checks whether a restaurant at this location can be within the serving radius of some
+   * point of the cell.
+   */
+  public boolean isWithinReach(double latitude, double longitude) {
+    return GeoUtils.isWithinReachOfCell(cell, servingRadiusInKms, latitude, longitude);
+  }
+
+  /**
+   * Name of the key in Redis.
+   */
+  public String toRedisKey() {
+    return "nearby:" + cell.toBase32() + ":" + servingRadiusInKms + ":" + slot;
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import com.crio.qeats.dto.Restaurant;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Restaurant lists as JSON arrays, the format the cache used originally.
+ * Reads and writes through a reader and a writer bound to List&lt;Restaurant&gt; once, so that
+ * every call reuses the serializers and deserializers the mapper has already built.
+ */
+@Log4j2
+public class JsonRestaurantListCodec implements RestaurantListCodec {
+
+  private final ObjectReader reader;
+  private final ObjectWriter writer;
+
+  public JsonRestaurantListCodec() {
+    this(new ObjectMapper());
+  }
+
+  /**
+   * Codec sharing the caches of objectMapper, the application's mapper in production.
+   */
+  public JsonRestaurantListCodec(ObjectMapper objectMapper) {
+    JavaType restaurantListType =
+        objectMapper.getTypeFactory().constructCollectionType(List.class, Restaurant.class);
+    this.reader = objectMapper.readerFor(restaurantListType);
+    this.writer = objectMapper.writerFor(restaurantListType);
+  }
+
+  @Override
+  public byte[] encode(List<Restaurant> restaurants) {
+    try {
+      return writer.writeValueAsBytes(restaurants);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public List<Restaurant> decode(byte[] bytes) {
+    if (bytes.length == 0 || bytes[0] != '[') {
+      return null;
+    }
+    try {
+      return reader.readValue(bytes);
+    } catch (IOException e) {
+      log.warn("Could not decode cached restaurant list", e);
+      return null;
+    }
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import com.crio.qeats.dto.Restaurant;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalNotification;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process (L1) cache of nearby candidates, sitting in front of Redis (L2).
+ * Bounded in size and with a short time to live, so that the hottest cells are answered
+ * without a Redis round-trip and without deserializing the list again.
+ * Cached lists are shared between requests and therefore unmodifiable. Entries are indexed by
+ * the restaurants they list and by area, so a restaurant change drops its entries directly.
+ */
+@Log4j2
+@Component
+public class LocalRestaurantCache {
+
+  static final String METRICS_NAME = "qeats.nearby.local";
+
+  @Value("${qeats.cache.local.max-entries:10000}")
+  private long maxEntries;
+
+  @Value("${qeats.cache.local.ttl-seconds:60}")
+  private long ttlInSeconds;
+
+  @Autowired(required = false)
+  private MeterRegistry meterRegistry;
+
+  private Cache<CellKey, List<Restaurant>> cache;
+
+  // Guarded by itself, together with the entries it indexes.
+  private final CellEntryIndex<CellKey> index = new CellEntryIndex<>(key -> key);
+
+  /**
+   * Builds the cache and publishes its hit/miss/eviction counters when metrics are available.
+   */
+  @PostConstruct
+  public void initCache() {
+    cache = CacheBuilder.newBuilder()
+        .maximumSize(maxEntries)
+        .expireAfterWrite(ttlInSeconds, TimeUnit.SECONDS)
+        .recordStats()
+        .removalListener(this::unindex)
+        .build();
+    if (meterRegistry != null) {
+      GuavaCacheMetrics.monitor(meterRegistry, cache, METRICS_NAME);
+    }
+    log.info("Local nearby cache holds up to {} entries for {} s", maxEntries, ttlInSeconds);
+  }
+
+  /**
+   * Returns the cached candidates, or null on a miss.
+   */
+  public List<Restaurant> get(CellKey key) {
+    return cache.getIfPresent(key);
+  }
+
+  /**
+   * Caches the candidates and returns the unmodifiable list that was stored.
+   */
+  public List<Restaurant> put(CellKey key, List<Restaurant> restaurants) {
+    List<Restaurant> cached = Collections.unmodifiableList(restaurants);
+    synchronized (index) {
+      cache.put(key, cached);
+      index.add(key, getRestaurantIds(cached));
+    }
+    return cached;
+  }
+
+  public void invalidate(CellKey key) {
+    cache.invalidate(key);
+  }
+
+  /**
+   * Drops the entries a changed restaurant may be missing from or stale in: those listing it,
+   * and those of the cells it can be served to from its location, when known.
+   */
+  public void invalidateRestaurant(String restaurantId, Double latitude, Double longitude) {
+    synchronized (index) {
+      cache.invalidateAll(index.findKeys(restaurantId, latitude, longitude));
+    }
+  }
+
+  /**
+   * Drops every entry, e.g. after the restaurants collection changed.
+   */
+  public void invalidateAll() {
+    synchronized (index) {
+      cache.invalidateAll();
+      index.clear();
+    }
+  }
+
+  public CacheStats getStats() {
+    return cache.stats();
+  }
+
+  public long size() {
+    return cache.size();
+  }
+
+  private void unindex(RemovalNotification<CellKey, List<Restaurant>> notification) {
+    if (notification.getKey() == null || notification.getValue() == null) {
+      return;
+    }
+    synchronized (index) {
+      // The key may hold a newer entry by the time a removal is reported.
+      List<Restaurant> current = cache.asMap().get(notification.getKey());
+      index.remove(notification.getKey(), getRestaurantIds(notification.getValue()),
+          current == null ? null : getRestaurantIds(current));
+    }
+  }
+
+  private static List<String> getRestaurantIds(List<Restaurant> restaurants) {
+    List<String> restaurantIds = new ArrayList<>(restaurants.size());
+    for (Restaurant restaurant : restaurants) {
+      restaurantIds.add(restaurant.getRestaurantId());
+    }
+    return restaurantIds;
+  }
+}
@@ -0,0 +1,251 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import com.crio.qeats.configs.RedisConfiguration;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * Access layer over the Jedis pool of {@link RedisConfiguration}.
+ * Every call returns its connection to the pool, entries are always written with an expiry,
+ * and Redis being slow or down degrades to a cache miss instead of failing the request.
+ * Writes can optionally be done off the request thread.
+ */
+@Log4j2
+@Component
+public class RedisCacheClient {
+
+  static final String METRICS_PREFIX = "qeats.redis.pool";
+
+  @Autowired
+  private RedisConfiguration redisConfiguration;
+
+  @Autowired(required = false)
+  private MeterRegistry meterRegistry;
+
+  @Value("${qeats.cache.redis.async-writes:false}")
+  private boolean asyncWrites;
+
+  @Value("${qeats.cache.redis.write-queue-size:1000}")
+  private int writeQueueSize;
+
+  private ThreadPoolExecutor writeExecutor;
+
+  /**
+   * Starts the background writer when enabled and publishes the pool gauges.
+   */
+  @PostConstruct
+  public void init() {
+    if (asyncWrites) {
+      // A single writer with a bounded queue; when Redis cannot keep up, writes are dropped
+      // rather than piling up, the entry is simply recomputed on a later miss.
+      writeExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+          new ArrayBlockingQueue<>(writeQueueSize), runnable -> {
+            Thread thread = new Thread(runnable, "redis-cache-writer");
+            thread.setDaemon(true);
+            return thread;
+          }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+    if (meterRegistry != null) {
+      registerPoolGauge("active", JedisPool::getNumActive);
+      registerPoolGauge("idle", JedisPool::getNumIdle);
+      registerPoolGauge("waiters", JedisPool::getNumWaiters);
+      registerPoolGauge("max-borrow-wait-ms", JedisPool::getMaxBorrowWaitTimeMillis);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    if (writeExecutor != null) {
+      writeExecutor.shutdown();
+    }
+  }
+
+  /**
+   * Reads a value.
+   * @param key key to read
+   * @return the value, or null if it is missing or Redis is unavailable
+   */
+  public byte[] get(String key) {
+    JedisPool jedisPool = getJedisPool();
+    if (jedisPool == null) {
+      return null;
+    }
+    try (Jedis jedis = jedisPool.getResource()) {
+      return jedis.get(SafeEncoder.encode(key));
+    } catch (JedisException e) {
+      log.warn("Redis read of {} failed, treating it as a miss", key, e);
+      return null;
+    }
+  }
+
+  /**
+   * Reads several values in one round-trip.
+   * @param keys keys to read
+   * @return the values in the order of the keys, null for missing ones, or null altogether if
+   *     Redis is unavailable
+   */
+  public List<byte[]> getAll(List<String> keys) {
+    JedisPool jedisPool = getJedisPool();
+    if (jedisPool == null) {
+      return null;
+    }
+    if (keys.isEmpty()) {
+      return Collections.emptyList();
+    }
+    try (Jedis jedis = jedisPool.getResource()) {
+      return jedis.mget(encode(keys));
+    } catch (JedisException e) {
+      log.warn("Redis read of {} keys failed, treating it as a miss", keys.size(), e);
+      return null;
+    }
+  }
+
+  /**
+   * Writes a value expiring after {@link RedisConfiguration#REDIS_ENTRY_EXPIRY_IN_SECONDS}.
+   */
+  public void put(String key, byte[] value) {
+    put(key, value, RedisConfiguration.REDIS_ENTRY_EXPIRY_IN_SECONDS);
+  }
+
+  /**
+   * Writes a value with an expiry, in the background when asynchronous writes are enabled.
+   * @param key key to write
+   * @param value value to write
+   * @param expiryInSeconds time to live of the entry
+   */
+  public void put(String key, byte[] value, int expiryInSeconds) {
+    if (writeExecutor != null) {
+      writeExecutor.execute(() -> write(key, value, expiryInSeconds));
+    } else {
+      write(key, value, expiryInSeconds);
+    }
+  }
+
+  /**
+   * Writes several values in one pipelined round-trip, each expiring after
+   * {@link RedisConfiguration#REDIS_ENTRY_EXPIRY_IN_SECONDS}.
+   */
+  public void putAll(Map<String, byte[]> values) {
+    if (values.isEmpty()) {
+      return;
+    }
+    if (writeExecutor != null) {
+      writeExecutor.execute(() -> writeAll(values));
+    } else {
+      writeAll(values);
+    }
+  }
+
+  /**
+   * Deletes keys, ignoring Redis failures; the entries then expire on their own.
+   */
+  public void delete(String... keys) {
+    JedisPool jedisPool = getJedisPool();
+    if (jedisPool == null || keys.length == 0) {
+      return;
+    }
+    try (Jedis jedis = jedisPool.getResource()) {
+      jedis.del(keys);
+    } catch (JedisException e) {
+      log.warn("Redis delete of {} keys failed", keys.length, e);
+    }
+  }
+
+  private void writeAll(Map<String, byte[]> values) {
+    JedisPool jedisPool = getJedisPool();
+    if (jedisPool == null) {
+      return;
+    }
+    try (Jedis jedis = jedisPool.getResource()) {
+      Pipeline pipeline = jedis.pipelined();
+      for (Map.Entry<String, byte[]> entry : values.entrySet()) {
+        pipeline.setex(SafeEncoder.encode(entry.getKey()),
+            RedisConfiguration.REDIS_ENTRY_EXPIRY_IN_SECONDS, entry.getValue());
+      }
+      pipeline.sync();
+    } catch (JedisException e) {
+      log.warn("Redis write of {} keys failed", values.size(), e);
+    }
+  }
+
+  private void write(String key, byte[] value, int expiryInSeconds) {
+    JedisPool jedisPool = getJedisPool();
+    if (jedisPool == null) {
+      return;
+    }
+    try (Jedis jedis = jedisPool.getResource()) {
+      jedis.setex(SafeEncoder.encode(key), expiryInSeconds, value);
+    } catch (JedisException e) {
+      log.warn("Redis write of {} failed", key, e);
+    }
+  }
+
+  /**
+   * Runs commands on a pooled connection and returns it afterwards, for callers needing more
+   * than plain reads and writes. Unlike the other methods, Redis failures are not swallowed.
+   * @param commands commands to run
+   * @return what the commands return
+   * @throws JedisException if Redis is unavailable or a command fails
+   */
+  public <T> T execute(Function<Jedis, T> commands) {
+    JedisPool jedisPool = getJedisPool();
+    if (jedisPool == null) {
+      throw new JedisException("Redis pool is not initialized");
+    }
+    try (Jedis jedis = jedisPool.getResource()) {
+      return commands.apply(jedis);
+    }
+  }
+
+  private static byte[][] encode(List<String> keys) {
+    byte[][] encoded = new byte[keys.size()][];
+    for (int i = 0; i < encoded.length; i++) {
+      encoded[i] = SafeEncoder.encode(keys.get(i));
+    }
+    return encoded;
+  }
+
+  private JedisPool getJedisPool() {
+    if (redisConfiguration.getJedisPool() == null) {
+      // The pool is dropped by RedisConfiguration#destroyCache.
+      synchronized (this) {
+        if (redisConfiguration.getJedisPool() == null) {
+          redisConfiguration.initCache();
+        }
+      }
+    }
+    return redisConfiguration.getJedisPool();
+  }
+
+  private void registerPoolGauge(String name, ToDoubleFunction<JedisPool> value) {
+    Gauge.builder(METRICS_PREFIX + "." + name, redisConfiguration, configuration -> {
+      JedisPool jedisPool = configuration.getJedisPool();
+      return jedisPool == null ? 0 : value.applyAsDouble(jedisPool);
+    }).register(meterRegistry);
+  }
+}
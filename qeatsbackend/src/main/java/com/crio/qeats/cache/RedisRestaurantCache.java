@@ -0,0 +1,141 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import com.crio.qeats.dto.Restaurant;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Normalised Redis (L2) layout of the nearby candidates.
+ * A cache key maps to the ids of its restaurants, and every restaurant body is stored once
+ * under its own key, shared by all the cells listing it. Reading a cell is two round-trips
+ * (the id list, then one MGET of the bodies); changing a restaurant deletes a single body,
+ * which turns every cell listing it into a miss.
+ */
+@Log4j2
+@Component
+public class RedisRestaurantCache {
+
+  static final String RESTAURANT_KEY_PREFIX = "restaurant:";
+
+  private static final byte ID_LIST_VERSION = 1;
+
+  @Autowired
+  private RedisCacheClient redisCacheClient;
+
+  @Autowired
+  private RestaurantListCodec restaurantListCodec;
+
+  static String getRestaurantKey(String restaurantId) {
+    return RESTAURANT_KEY_PREFIX + restaurantId;
+  }
+
+  /**
+   * Reads the restaurants cached under a key.
+   * @param key cache key
+   * @return the restaurants, or null on a miss, including when any of the bodies is gone
+   */
+  public List<Restaurant> get(String key) {
+    byte[] encodedIds = redisCacheClient.get(key);
+    if (encodedIds == null) {
+      return null;
+    }
+    List<String> restaurantIds = decodeIds(encodedIds);
+    if (restaurantIds == null) {
+      return null;
+    }
+    List<String> restaurantKeys = new ArrayList<>(restaurantIds.size());
+    for (String restaurantId : restaurantIds) {
+      restaurantKeys.add(getRestaurantKey(restaurantId));
+    }
+    List<byte[]> bodies = redisCacheClient.getAll(restaurantKeys);
+    if (bodies == null) {
+      return null;
+    }
+
+    List<Restaurant> restaurants = new ArrayList<>(bodies.size());
+    for (byte[] body : bodies) {
+      List<Restaurant> decoded = body == null ? null : restaurantListCodec.decode(body);
+      if (decoded == null || decoded.size() != 1) {
+        return null;
+      }
+      restaurants.add(decoded.get(0));
+    }
+    return restaurants;
+  }
+
+  /**
+   * Caches the restaurants under a key, writing the id list and every body in one pipeline.
+   */
+  public void put(String key, List<Restaurant> restaurants) {
+    Map<String, byte[]> values = new LinkedHashMap<>();
+    List<String> restaurantIds = new ArrayList<>(restaurants.size());
+    for (Restaurant restaurant : restaurants) {
+      restaurantIds.add(restaurant.getRestaurantId());
+      values.put(getRestaurantKey(restaurant.getRestaurantId()),
+          restaurantListCodec.encode(Collections.singletonList(restaurant)));
+    }
+    // Bodies first, so that a reader never finds an id list whose bodies are not written yet.
+    values.put(key, encodeIds(restaurantIds));
+    redisCacheClient.putAll(values);
+  }
+
+  /**
+   * Evicts one restaurant; every cached cell listing it becomes a miss.
+   */
+  public void evictRestaurant(String restaurantId) {
+    redisCacheClient.delete(getRestaurantKey(restaurantId));
+  }
+
+  static byte[] encodeIds(List<String> restaurantIds) {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(4 + restaurantIds.size() * 8);
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeByte(ID_LIST_VERSION);
+      BinaryRestaurantListCodec.writeVarint(out, restaurantIds.size());
+      for (String restaurantId : restaurantIds) {
+        BinaryRestaurantListCodec.writeString(out, restaurantId);
+      }
+      out.flush();
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  static List<String> decodeIds(byte[] encodedIds) {
+    if (encodedIds.length == 0 || encodedIds[0] != ID_LIST_VERSION) {
+      return null;
+    }
+    try {
+      DataInputStream in = new DataInputStream(
+          new ByteArrayInputStream(encodedIds, 1, encodedIds.length - 1));
+      int count = BinaryRestaurantListCodec.readVarint(in);
+      List<String> restaurantIds = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        restaurantIds.add(BinaryRestaurantListCodec.readString(in));
+      }
+      return restaurantIds;
+    } catch (IOException e) {
+      log.warn("Could not decode cached restaurant ids", e);
+      return null;
+    }
+  }
+}
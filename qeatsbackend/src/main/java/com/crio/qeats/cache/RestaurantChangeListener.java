@@ -0,0 +1,92 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import com.crio.qeats.indexes.CatalogSnapshot;
+import com.crio.qeats.indexes.RestaurantCatalog;
+import com.crio.qeats.models.RestaurantEntity;
+import lombok.extern.log4j.Log4j2;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the catalog and the caches built from it in line with restaurant writes made through
+ * Spring Data. Only the entries the changed restaurant may appear in are dropped: its body in
+ * Redis and its JSON, and the local nearby and search entries listing it or covering its
+ * location. The catalog is rebuilt in the background, and the same entries are dropped again
+ * once the new snapshot serves, as they may have been refilled from the old one meanwhile.
+ * Other nodes drop their local copies as their entries expire, and a restaurant moving into a
+ * cell Redis did not list it in shows up there once the cell expires.
+ */
+@Log4j2
+@Component
+public class RestaurantChangeListener extends AbstractMongoEventListener<RestaurantEntity> {
+
+  @Autowired
+  private RestaurantCatalog restaurantCatalog;
+
+  @Autowired
+  private LocalRestaurantCache localRestaurantCache;
+
+  @Autowired
+  private RedisRestaurantCache redisRestaurantCache;
+
+  @Autowired
+  private SearchResultCache searchResultCache;
+
+  @Autowired
+  private RestaurantJsonCache restaurantJsonCache;
+
+  @Override
+  public void onAfterSave(AfterSaveEvent<RestaurantEntity> event) {
+    RestaurantEntity restaurantEntity = event.getSource();
+    restaurantChanged(restaurantEntity.getRestaurantId(), restaurantEntity.getLatitude(),
+        restaurantEntity.getLongitude());
+  }
+
+  @Override
+  public void onAfterDelete(AfterDeleteEvent<RestaurantEntity> event) {
+    // Deletes only carry the query, map the document id back through the loaded catalog.
+    Document query = event.getSource();
+    Object documentId = query == null ? null : query.get("_id");
+    CatalogSnapshot catalog = restaurantCatalog.getLoadedSnapshot();
+    String restaurantId = documentId == null || catalog == null
+        ? null : catalog.findRestaurantId(documentId.toString());
+    restaurantChanged(restaurantId, null, null);
+  }
+
+  private void restaurantChanged(String restaurantId, Double latitude, Double longitude) {
+    evict(restaurantId, latitude, longitude);
+    restaurantCatalog.refreshLater().whenComplete((catalog, e) -> {
+      try {
+        evict(restaurantId, latitude, longitude);
+      } catch (RuntimeException evictionFailure) {
+        log.warn("Could not evict restaurant {} after the catalog refresh", restaurantId,
+            evictionFailure);
+      }
+    });
+  }
+
+  private void evict(String restaurantId, Double latitude, Double longitude) {
+    if (restaurantId == null) {
+      // Unknown restaurant, e.g. deleted before the catalog listed it.
+      localRestaurantCache.invalidateAll();
+      searchResultCache.invalidateAll();
+      log.debug("Unknown restaurant changed, local caches invalidated");
+      return;
+    }
+    localRestaurantCache.invalidateRestaurant(restaurantId, latitude, longitude);
+    searchResultCache.invalidateRestaurant(restaurantId, latitude, longitude);
+    redisRestaurantCache.evictRestaurant(restaurantId);
+    restaurantJsonCache.evict(restaurantId);
+    log.debug("Restaurant {} changed, its cache entries evicted", restaurantId);
+  }
+}
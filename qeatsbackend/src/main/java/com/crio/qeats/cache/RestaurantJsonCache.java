@@ -0,0 +1,136 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import com.crio.qeats.dto.Restaurant;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.io.UncheckedIOException;
+import javax.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process cache of the JSON of each restaurant, as written in API responses, so that a
+ * response is assembled by copying bytes instead of serializing every restaurant again.
+ * Responses show the restaurant's display name as its name.
+ * An entry keeps a copy of the restaurant it was written from and is only used for an equal
+ * restaurant, so a response never carries stale JSON even before the entry is evicted on a
+ * restaurant change.
+ */
+@Log4j2
+@Component
+public class RestaurantJsonCache {
+
+  static final String METRICS_NAME = "qeats.restaurants.json";
+
+  @Value("${qeats.cache.restaurant-json.max-entries:20000}")
+  private long maxEntries;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired(required = false)
+  private MeterRegistry meterRegistry;
+
+  private ObjectWriter writer;
+
+  private Cache<String, Fragment> cache;
+
+  /**
+   * Builds the cache and publishes its hit/miss/eviction counters when metrics are available.
+   */
+  @PostConstruct
+  public void initCache() {
+    writer = objectMapper.copy()
+        .addMixIn(Restaurant.class, DisplayNameMixIn.class)
+        .writerFor(Restaurant.class);
+    cache = CacheBuilder.newBuilder()
+        .maximumSize(maxEntries)
+        .recordStats()
+        .build();
+    if (meterRegistry != null) {
+      GuavaCacheMetrics.monitor(meterRegistry, cache, METRICS_NAME);
+    }
+    log.info("Restaurant JSON cache holds up to {} entries", maxEntries);
+  }
+
+  /**
+   * Returns the JSON of the restaurant, from the cache when it holds an equal restaurant.
+   * The array is shared, callers must not modify it.
+   */
+  public byte[] getJson(Restaurant restaurant) {
+    String restaurantId = restaurant.getRestaurantId();
+    Fragment fragment = restaurantId == null ? null : cache.getIfPresent(restaurantId);
+    if (fragment != null && fragment.restaurant.equals(restaurant)) {
+      return fragment.json;
+    }
+
+    byte[] json;
+    try {
+      json = writer.writeValueAsBytes(restaurant);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+    if (restaurantId != null) {
+      // The DTOs of a response may be changed once it is sent, compare with a copy.
+      cache.put(restaurantId, new Fragment(new Restaurant(restaurant), json));
+    }
+    return json;
+  }
+
+  /**
+   * Drops the JSON of a restaurant, e.g. after it changed.
+   */
+  public void evict(String restaurantId) {
+    cache.invalidate(restaurantId);
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  public CacheStats getStats() {
+    return cache.stats();
+  }
+
+  public long size() {
+    return cache.size();
+  }
+
+  // Writes the display name where the name goes, keeping the field order of the DTO.
+  @JsonPropertyOrder({"id", "restaurantId", "name"})
+  private abstract static class DisplayNameMixIn {
+
+    @JsonIgnore
+    public abstract String getName();
+
+    @JsonProperty("name")
+    public abstract String getDisplayName();
+  }
+
+  private static class Fragment {
+    final Restaurant restaurant;
+    final byte[] json;
+
+    Fragment(Restaurant restaurant, byte[] json) {
+      this.restaurant = restaurant;
+      this.json = json;
+    }
+  }
+}
@@ -0,0 +1,26 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import com.crio.qeats.dto.Restaurant;
+import java.util.List;
+
+/**
+ * Serialized form of the restaurant lists kept in Redis.
+ */
+public interface RestaurantListCodec {
+
+  byte[] encode(List<Restaurant> restaurants);
+
+  /**
+   * Decodes a value written by {@link #encode(List)}.
+   * @param bytes cached value
+   * @return the restaurants, or null if the value is not in a format this codec can read, in
+   *     which case callers treat it as a cache miss
+   */
+  List<Restaurant> decode(byte[] bytes);
+}
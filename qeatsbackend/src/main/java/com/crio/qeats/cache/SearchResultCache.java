@@ -0,0 +1,148 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import ch.hsr.geohash.GeoHash;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalNotification;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process cache of search results, as the ranked ids of the restaurants matching a query
+ * for a geohash cell and a fifteen minute slot. Ids are resolved against the catalog on every
+ * request, so an entry stays small and is shared by everyone searching from the cell.
+ * A restaurant change drops the entries it may affect, found through an index of the entries
+ * by restaurant and by area; a menu change drops every entry.
+ */
+@Log4j2
+@Component
+public class SearchResultCache {
+
+  static final String METRICS_NAME = "qeats.search.results";
+
+  // About 1.2 km x 0.6 km, as for the nearby candidates.
+  public static final int GEOHASH_PRECISION = 6;
+
+  @Value("${qeats.cache.search.max-entries:10000}")
+  private long maxEntries;
+
+  @Value("${qeats.cache.search.ttl-seconds:300}")
+  private long ttlInSeconds;
+
+  @Autowired(required = false)
+  private MeterRegistry meterRegistry;
+
+  private Cache<Key, List<String>> cache;
+
+  // Guarded by itself, together with the entries it indexes.
+  private final CellEntryIndex<Key> index = new CellEntryIndex<>(Key::getCellKey);
+
+  /**
+   * Builds the cache and publishes its hit/miss/eviction counters when metrics are available.
+   */
+  @PostConstruct
+  public void initCache() {
+    cache = CacheBuilder.newBuilder()
+        .maximumSize(maxEntries)
+        .expireAfterWrite(ttlInSeconds, TimeUnit.SECONDS)
+        .recordStats()
+        .removalListener(this::unindex)
+        .build();
+    if (meterRegistry != null) {
+      GuavaCacheMetrics.monitor(meterRegistry, cache, METRICS_NAME);
+    }
+    log.info("Search result cache holds up to {} entries for {} s", maxEntries, ttlInSeconds);
+  }
+
+  /**
+   * Key of a normalized query searched from a cell, with a serving radius, during a slot.
+   */
+  public static Key getKey(String normalizedQuery, GeoHash cell, Double servingRadiusInKms,
+      int slot) {
+    return new Key(new CellKey(cell, servingRadiusInKms, slot), normalizedQuery);
+  }
+
+  /**
+   * Returns the cached restaurant ids, best match first, or null on a miss.
+   */
+  public List<String> get(Key key) {
+    return cache.getIfPresent(key);
+  }
+
+  /**
+   * Caches the restaurant ids and returns the unmodifiable list that was stored.
+   */
+  public List<String> put(Key key, List<String> restaurantIds) {
+    List<String> cached = Collections.unmodifiableList(restaurantIds);
+    synchronized (index) {
+      cache.put(key, cached);
+      index.add(key, cached);
+    }
+    return cached;
+  }
+
+  /**
+   * Drops the entries a changed restaurant may be missing from or stale in: those listing it,
+   * and those of the cells it can be served to from its location, when known.
+   */
+  public void invalidateRestaurant(String restaurantId, Double latitude, Double longitude) {
+    synchronized (index) {
+      cache.invalidateAll(index.findKeys(restaurantId, latitude, longitude));
+    }
+  }
+
+  /**
+   * Drops every entry, e.g. after a menu changed.
+   */
+  public void invalidateAll() {
+    synchronized (index) {
+      cache.invalidateAll();
+      index.clear();
+    }
+  }
+
+  public CacheStats getStats() {
+    return cache.stats();
+  }
+
+  public long size() {
+    return cache.size();
+  }
+
+  private void unindex(RemovalNotification<Key, List<String>> notification) {
+    if (notification.getKey() == null || notification.getValue() == null) {
+      return;
+    }
+    synchronized (index) {
+      // The key may hold a newer entry by the time a removal is reported.
+      index.remove(notification.getKey(), notification.getValue(),
+          cache.asMap().get(notification.getKey()));
+    }
+  }
+
+  /**
+   * Key of the results of a normalized query searched from a cell.
+   */
+  @lombok.Value
+  public static class Key {
+
+    CellKey cellKey;
+
+    String normalizedQuery;
+  }
+}
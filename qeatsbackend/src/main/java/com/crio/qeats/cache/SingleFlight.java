@@ -0,0 +1,86 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the loader, the others
+ * wait for its result instead of repeating the work. Once the load completes the key is
+ * released, so results are not cached here; callers are expected to cache them inside the
+ * loader. A caller that waited too long for another's load runs the loader itself, so a hung
+ * load does not hold up every caller of its key.
+ * @param <K> key type
+ * @param <V> value type
+ */
+@Log4j2
+public class SingleFlight<K, V> {
+
+  private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+  /**
+   * Runs the loader, or waits for the one already running for this key.
+   * @param key key being loaded
+   * @param waitTimeoutInMs how long to wait for another caller's load before running the
+   *     loader independently; 0 waits for it however long it takes
+   * @param loader loader to run if no other caller is loading the key
+   * @return the loaded value
+   */
+  public V load(K key, long waitTimeoutInMs, Supplier<V> loader) {
+    CompletableFuture<V> created = new CompletableFuture<>();
+    CompletableFuture<V> running = inFlight.putIfAbsent(key, created);
+    if (running != null) {
+      try {
+        return await(running, waitTimeoutInMs);
+      } catch (TimeoutException e) {
+        log.warn("Load of {} still running after {} ms, loading independently", key,
+            waitTimeoutInMs);
+        return loader.get();
+      }
+    }
+    try {
+      V value = loader.get();
+      created.complete(value);
+      return value;
+    } catch (RuntimeException | Error e) {
+      created.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, created);
+    }
+  }
+
+  public int inFlightCount() {
+    return inFlight.size();
+  }
+
+  private V await(CompletableFuture<V> running, long waitTimeoutInMs)
+      throws TimeoutException {
+    try {
+      return waitTimeoutInMs > 0
+          ? running.get(waitTimeoutInMs, TimeUnit.MILLISECONDS) : running.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for a load", e);
+    }
+  }
+}
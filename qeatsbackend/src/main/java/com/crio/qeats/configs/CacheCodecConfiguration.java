@@ -0,0 +1,37 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.configs;
+
+import com.crio.qeats.cache.BinaryRestaurantListCodec;
+import com.crio.qeats.cache.JsonRestaurantListCodec;
+import com.crio.qeats.cache.RestaurantListCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CacheCodecConfiguration {
+
+  public static final String CODEC_JSON = "json";
+
+  /**
+   * Codec of the restaurant lists kept in Redis, "binary" (default) or "json".
+   * Entries written in the other format are read as misses and rewritten.
+   * The JSON codec uses the application's ObjectMapper, and with it the serializers already
+   * built for the API responses.
+   */
+  @Bean
+  public RestaurantListCodec restaurantListCodec(ObjectMapper objectMapper,
+      @Value("${qeats.cache.codec:binary}") String codec,
+      @Value("${qeats.cache.codec.compression-threshold-bytes:1024}") int compressionThreshold) {
+    if (CODEC_JSON.equals(codec)) {
+      return new JsonRestaurantListCodec(objectMapper);
+    }
+    return new BinaryRestaurantListCodec(compressionThreshold);
+  }
+}
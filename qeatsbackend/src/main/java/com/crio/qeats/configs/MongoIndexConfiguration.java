@@ -0,0 +1,123 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.configs;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.utils.TextNormalizer;
+import java.util.Arrays;
+import java.util.List;
+import lombok.extern.log4j.Log4j2;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeospatialIndex;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+
+@Log4j2
+@Component
+public class MongoIndexConfiguration {
+
+  public static final String RESTAURANTS_COLLECTION = "restaurants";
+
+  public static final String ITEMS_COLLECTION = "items";
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  /**
+   * Creates the indexes the repositories rely on once the application is up.
+   * Failures are logged and otherwise ignored, the in-process code paths do not need them.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void ensureIndexes() {
+    try {
+      backfillRestaurantLocations();
+      mongoTemplate.indexOps(RESTAURANTS_COLLECTION)
+          .ensureIndex(new GeospatialIndex("location").typed(GeoSpatialIndexType.GEO_2DSPHERE));
+    } catch (RuntimeException e) {
+      log.warn("Could not create the restaurants 2dsphere index", e);
+    }
+    for (String collection : Arrays.asList(RESTAURANTS_COLLECTION, ITEMS_COLLECTION)) {
+      try {
+        backfillNormalizedFields(collection);
+        IndexOperations indexOperations = mongoTemplate.indexOps(collection);
+        indexOperations.ensureIndex(new Index().on("normalizedName", Direction.ASC));
+        indexOperations.ensureIndex(new Index().on("normalizedAttributes", Direction.ASC));
+      } catch (RuntimeException e) {
+        log.warn("Could not create the {} normalized field indexes", collection, e);
+      }
+    }
+  }
+
+  /**
+   * Fills in the normalized copies of name and attributes of documents written before they
+   * existed, or by other means than the entities' setters.
+   */
+  private void backfillNormalizedFields(String collection) {
+    Query missingNormalizedName = new Query(where("normalizedName").exists(false)
+        .and("name").exists(true));
+    missingNormalizedName.fields().include("name").include("attributes");
+
+    List<Document> documents = mongoTemplate.find(missingNormalizedName, Document.class,
+        collection);
+    if (documents.isEmpty()) {
+      return;
+    }
+
+    BulkOperations bulkOperations = mongoTemplate.bulkOps(
+        BulkOperations.BulkMode.UNORDERED, collection);
+    for (Document document : documents) {
+      @SuppressWarnings("unchecked")
+      List<String> attributes = document.get("attributes", List.class);
+      bulkOperations.updateOne(new Query(where("_id").is(document.get("_id"))),
+          new Update().set("normalizedName", TextNormalizer.normalize(document.getString("name")))
+              .set("normalizedAttributes", TextNormalizer.normalize(attributes)));
+    }
+    bulkOperations.execute();
+    log.info("Backfilled normalized fields for {} {}", documents.size(), collection);
+  }
+
+  /**
+   * Fills in the GeoJSON location of restaurants that only have latitude/longitude, e.g. the
+   * ones restored from the mongo dumps used by the setup scripts.
+   */
+  private void backfillRestaurantLocations() {
+    Query missingLocation = new Query(where("location").exists(false)
+        .and("latitude").exists(true).and("longitude").exists(true));
+    missingLocation.fields().include("latitude").include("longitude");
+
+    List<RestaurantEntity> restaurants =
+        mongoTemplate.find(missingLocation, RestaurantEntity.class, RESTAURANTS_COLLECTION);
+    if (restaurants.isEmpty()) {
+      return;
+    }
+
+    BulkOperations bulkOperations = mongoTemplate.bulkOps(
+        BulkOperations.BulkMode.UNORDERED, RestaurantEntity.class, RESTAURANTS_COLLECTION);
+    for (RestaurantEntity restaurant : restaurants) {
+      GeoJsonPoint location =
+          new GeoJsonPoint(restaurant.getLongitude(), restaurant.getLatitude());
+      bulkOperations.updateOne(new Query(where("_id").is(restaurant.getId())),
+          new Update().set("location", location));
+    }
+    bulkOperations.execute();
+    log.info("Backfilled location for {} restaurants", restaurants.size());
+  }
+}
@@ -49,6 +49,8 @@ public class RedisConfiguration {
     poolConfig.setTimeBetweenEvictionRunsMillis(Duration.ofSeconds(30).toMillis());
     poolConfig.setNumTestsPerEvictionRun(3);
     poolConfig.setBlockWhenExhausted(true);
+    // Bound the wait for a connection, callers treat a failed borrow as a cache miss.
+    poolConfig.setMaxWaitMillis(Duration.ofMillis(500).toMillis());
     return poolConfig;
   }
 
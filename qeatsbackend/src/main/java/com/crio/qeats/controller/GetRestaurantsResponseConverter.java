@@ -0,0 +1,79 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.controller;
+
+import com.crio.qeats.cache.RestaurantJsonCache;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes GetRestaurantsResponse as Jackson would, but with each restaurant copied from its
+ * cached JSON straight into the response body, so that the cost of a response grows with its
+ * size rather than with the number of fields serialized.
+ * Registered ahead of the Jackson converter by Spring Boot, as any HttpMessageConverter bean.
+ */
+@Component
+public class GetRestaurantsResponseConverter
+    extends AbstractHttpMessageConverter<GetRestaurantsResponse> {
+
+  @Autowired
+  private RestaurantJsonCache restaurantJsonCache;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  public GetRestaurantsResponseConverter() {
+    super(StandardCharsets.UTF_8, MediaType.APPLICATION_JSON,
+        new MediaType("application", "*+json"));
+  }
+
+  @Override
+  protected boolean supports(Class<?> clazz) {
+    return GetRestaurantsResponse.class.isAssignableFrom(clazz);
+  }
+
+  @Override
+  public boolean canRead(Class<?> clazz, MediaType mediaType) {
+    return false;
+  }
+
+  @Override
+  protected GetRestaurantsResponse readInternal(Class<? extends GetRestaurantsResponse> clazz,
+      HttpInputMessage inputMessage) {
+    throw new HttpMessageNotReadableException("Responses are only written", inputMessage);
+  }
+
+  @Override
+  protected void writeInternal(GetRestaurantsResponse getRestaurantsResponse,
+      HttpOutputMessage outputMessage) throws IOException {
+    RestaurantListJsonWriter writer = new RestaurantListJsonWriter(outputMessage.getBody(),
+        restaurantJsonCache, objectMapper);
+    writer.writeStart();
+    List<Restaurant> restaurants = getRestaurantsResponse.getRestaurants();
+    if (restaurants == null) {
+      writer.writeNull();
+    } else {
+      writer.startArray();
+      for (Restaurant restaurant : restaurants) {
+        writer.writeRestaurant(restaurant);
+      }
+      writer.endArray();
+    }
+    writer.writeEnd(getRestaurantsResponse.isPartial(), getRestaurantsResponse.getNextCursor());
+  }
+}
@@ -6,10 +6,14 @@
 
 package com.crio.qeats.controller;
 
-import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.cache.RestaurantJsonCache;
 import com.crio.qeats.exchanges.GetRestaurantsRequest;
 import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.exchanges.GetSuggestionsResponse;
 import com.crio.qeats.services.RestaurantService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalTime;
 import java.util.List;
 import java.util.logging.Logger;
@@ -20,6 +24,7 @@ import javax.validation.Valid;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -29,6 +34,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
 // TODO: CRIO_TASK_MODULE_RESTAURANTSAPI
@@ -46,22 +52,25 @@ public class RestaurantController {
   public static final String CART_CLEAR_API = "/cart/clear";
   public static final String POST_ORDER_API = "/order";
   public static final String GET_ORDERS_API = "/orders";
+  public static final String SUGGEST_API = "/suggest";
+
+  static final int DEFAULT_SUGGESTIONS = 10;
+  static final int MAX_SUGGESTIONS = 20;
 
   @Autowired
   private RestaurantService restaurantService;
 
+  @Autowired
+  private RestaurantJsonCache restaurantJsonCache;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
   
 
   // @Resource(name = "restaurantServiceImpl")
   // private RestaurantService restaurantService;
 
-  boolean isSpecial(char c) {
-    if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || c == ' ') {
-      return false;
-    }
-    return true;
-  }
-
   // // @GetMapping(RESTAURANT_API_ENDPOINT + RESTAURANTS_API)
   // // public ResponseEntity<GetRestaurantsResponse> getRestaurants(
   // //     //annotation to read lat&long&searcffor
@@ -212,14 +221,13 @@ public class RestaurantController {
 
     log.info("getRestaurants called with {}", getRestaurantsRequest);
 
-    if (!getRestaurantsRequest.isValidGeoLocation()) {
+    if (!getRestaurantsRequest.isValidGeoLocation()
+        || !getRestaurantsRequest.isValidCursor()) {
       return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
     }
 
     GetRestaurantsResponse getRestaurantsResponse;
 
-    System.out.println("ReSTAURANT API");
-
     //CHECKSTYLE:OFF
     if (getRestaurantsRequest.getSearchFor() != null) {
       getRestaurantsResponse = restaurantService
@@ -232,21 +240,78 @@ public class RestaurantController {
       .findAllRestaurantsCloseBy(getRestaurantsRequest, LocalTime.now());
     }
 
-    log.info("getRestaurants returned {}", getRestaurantsResponse);
+    log.debug("getRestaurants returned {} restaurants",
+        getRestaurantsResponse.getRestaurants().size());
     //CHECKSTYLE:ON
-    
-    List<Restaurant> restaurants = getRestaurantsResponse.getRestaurants();
-    for  (Restaurant re: restaurants) {
-      String name = re.getName();
-      for (int i = 0; i < name.length(); i++) {
-        if (isSpecial(name.charAt(i))) {
-          name = name.substring(0,i) + '?' + name.substring(i + 1); 
-        }
+    return ResponseEntity.status(HttpStatus.OK).body(getRestaurantsResponse);
+  }
+
+  // Streaming variant of the nearby listing, for clients fetching large areas.
+  // API URI: /qeats/v1/restaurants?latitude=28.4900591&longitude=77.536386&stream=true
+  // Method: GET
+  // Query Params: latitude, longitude, stream=true; searches (with searchFor) are paginated
+  // and answered by getRestaurants.
+  // Success Output: same as getRestaurants, written on an MVC async thread as the repository
+  // finds the restaurants instead of collected into a list first. The status is sent before
+  // the first restaurant, so a failure midway cuts the response short rather than turning it
+  // into an error.
+  @GetMapping(value = RESTAURANT_API_ENDPOINT + RESTAURANTS_API,
+      params = {"stream=true", "!searchFor"})
+  public ResponseEntity<StreamingResponseBody> streamRestaurants(
+      @Valid GetRestaurantsRequest getRestaurantsRequest) {
+    log.info("streamRestaurants called with {}", getRestaurantsRequest);
+    if (!getRestaurantsRequest.isValidGeoLocation()) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+
+    LocalTime currentTime = LocalTime.now();
+    StreamingResponseBody body = outputStream -> {
+      RestaurantListJsonWriter writer = new RestaurantListJsonWriter(outputStream,
+          restaurantJsonCache, objectMapper);
+      writer.writeStart();
+      writer.startArray();
+      try {
+        restaurantService.forEachRestaurantCloseBy(getRestaurantsRequest, currentTime,
+            restaurant -> {
+              try {
+                writer.writeRestaurant(restaurant);
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            });
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
       }
-      re.setName(name);
+      writer.endArray();
+      writer.writeEnd(false, null);
+    };
+    return ResponseEntity.status(HttpStatus.OK).contentType(MediaType.APPLICATION_JSON_UTF8)
+        .body(body);
+  }
+
+  // Autocomplete for the search box, answered from memory so that it can be called on every
+  // keystroke instead of a full search.
+  // API URI: /qeats/v1/suggest?latitude=28.4900591&longitude=77.536386&searchFor=bir&limit=5
+  // Method: GET
+  // Query Params: latitude, longitude, searchFor (typed so far), limit (optional, 1 to 20)
+  // Success Output:
+  // HTTP Code: 200
+  // {
+  //  "suggestions": ["Biryani", "Chicken Biryani", "Biryani House"]
+  // }
+  //
+  // Error Response:
+  // HTTP Code: 4xx, if client side error.
+  @GetMapping(RESTAURANT_API_ENDPOINT + SUGGEST_API)
+  public ResponseEntity<GetSuggestionsResponse> getSuggestions(
+      @Valid GetRestaurantsRequest getRestaurantsRequest,
+      @RequestParam(defaultValue = "" + DEFAULT_SUGGESTIONS) int limit) {
+    if (!getRestaurantsRequest.isValidGeoLocation() || limit < 1 || limit > MAX_SUGGESTIONS) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
     }
-    getRestaurantsResponse.setRestaurants(restaurants);
-    return ResponseEntity.status(HttpStatus.OK).body(getRestaurantsResponse);
+    GetSuggestionsResponse getSuggestionsResponse = restaurantService
+        .findSuggestions(getRestaurantsRequest, limit, LocalTime.now());
+    return ResponseEntity.status(HttpStatus.OK).body(getSuggestionsResponse);
   }
 
   // TIP(MODULE_MENUAPI): Model Implementation for getting menu given a restaurantId.
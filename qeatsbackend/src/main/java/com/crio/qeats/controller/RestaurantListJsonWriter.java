@@ -0,0 +1,79 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.controller;
+
+import com.crio.qeats.cache.RestaurantJsonCache;
+import com.crio.qeats.dto.Restaurant;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes a GetRestaurantsResponse to a stream piece by piece, in the JSON Jackson would
+ * produce for it, each restaurant copied from its cached JSON. Calls go writeStart, then
+ * writeNull or startArray, writeRestaurant for each restaurant and endArray, then writeEnd.
+ * Must follow the JSON properties of GetRestaurantsResponse, the converter test compares the
+ * two.
+ */
+class RestaurantListJsonWriter {
+
+  private static final byte[] RESTAURANTS = bytes("{\"restaurants\":");
+  private static final byte[] NULL = bytes("null");
+  private static final byte[] PARTIAL = bytes(",\"partial\":true");
+  private static final byte[] NEXT_CURSOR = bytes(",\"nextCursor\":");
+
+  private final OutputStream body;
+  private final RestaurantJsonCache restaurantJsonCache;
+  private final ObjectMapper objectMapper;
+  private int restaurantsWritten;
+
+  RestaurantListJsonWriter(OutputStream body, RestaurantJsonCache restaurantJsonCache,
+      ObjectMapper objectMapper) {
+    this.body = body;
+    this.restaurantJsonCache = restaurantJsonCache;
+    this.objectMapper = objectMapper;
+  }
+
+  void writeStart() throws IOException {
+    body.write(RESTAURANTS);
+  }
+
+  void writeNull() throws IOException {
+    body.write(NULL);
+  }
+
+  void startArray() throws IOException {
+    body.write('[');
+  }
+
+  void writeRestaurant(Restaurant restaurant) throws IOException {
+    if (restaurantsWritten++ > 0) {
+      body.write(',');
+    }
+    body.write(restaurantJsonCache.getJson(restaurant));
+  }
+
+  void endArray() throws IOException {
+    body.write(']');
+  }
+
+  void writeEnd(boolean partial, String nextCursor) throws IOException {
+    if (partial) {
+      body.write(PARTIAL);
+    }
+    if (nextCursor != null) {
+      body.write(NEXT_CURSOR);
+      body.write(objectMapper.writeValueAsBytes(nextCursor));
+    }
+    body.write('}');
+  }
+
+  private static byte[] bytes(String text) {
+    return text.getBytes(StandardCharsets.UTF_8);
+  }
+}
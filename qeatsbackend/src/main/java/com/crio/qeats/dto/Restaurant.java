@@ -7,6 +7,8 @@
 
 package com.crio.qeats.dto;
 
+import com.crio.qeats.utils.DisplayNameUtils;
+import com.crio.qeats.utils.OpeningHoursUtils;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -14,6 +16,7 @@ import com.fasterxml.jackson.annotation.JsonValue;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
 import java.io.Serializable;
+import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
 import javax.validation.constraints.NotNull;
@@ -58,5 +61,69 @@ public class Restaurant implements Serializable {
   String closesAt;
   List<String> attributes;
 
+  // opensAt/closesAt as minutes of the day, derived when the times are set.
+  @JsonIgnore
+  @EqualsAndHashCode.Exclude
+  int opensAtMinute = OpeningHoursUtils.UNKNOWN;
+
+  @JsonIgnore
+  @EqualsAndHashCode.Exclude
+  int closesAtMinute = OpeningHoursUtils.UNKNOWN;
+
+  // Name as shown in API responses, see DisplayNameUtils. Derived from name once.
+  @JsonIgnore
+  @EqualsAndHashCode.Exclude
+  String displayName;
+
+  /**
+   * Copies a restaurant, giving the copy its own list of attributes. A field added to this
+   * class must be copied here, RestaurantTest checks that none is left out.
+   */
+  public Restaurant(Restaurant other) {
+    this.id = other.id;
+    this.restaurantId = other.restaurantId;
+    this.name = other.name;
+    this.city = other.city;
+    this.imageUrl = other.imageUrl;
+    this.latitude = other.latitude;
+    this.longitude = other.longitude;
+    this.opensAt = other.opensAt;
+    this.closesAt = other.closesAt;
+    this.attributes = other.attributes == null ? null : new ArrayList<>(other.attributes);
+    this.opensAtMinute = other.opensAtMinute;
+    this.closesAtMinute = other.closesAtMinute;
+    this.displayName = other.displayName;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+    this.displayName = null;
+  }
+
+  /**
+   * Returns the name as shown in API responses, deriving it on first use for restaurants
+   * that were not mapped from an entity, e.g. read back from a cache.
+   */
+  public String getDisplayName() {
+    if (displayName == null && name != null) {
+      displayName = DisplayNameUtils.toDisplayName(name);
+    }
+    return displayName;
+  }
+
+  public void setOpensAt(String opensAt) {
+    this.opensAt = opensAt;
+    this.opensAtMinute = OpeningHoursUtils.toMinuteOfDay(opensAt);
+  }
+
+  public void setClosesAt(String closesAt) {
+    this.closesAt = closesAt;
+    this.closesAtMinute = OpeningHoursUtils.toMinuteOfDay(closesAt);
+  }
+
+  public boolean isOpenAt(LocalTime currentTime) {
+    return OpeningHoursUtils.isOpen(opensAtMinute, closesAtMinute, currentTime);
+  }
+
 }
 
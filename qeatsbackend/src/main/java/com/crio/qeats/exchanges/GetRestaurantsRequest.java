@@ -32,6 +32,20 @@ public class GetRestaurantsRequest {
   @NonNull
   private Double longitude;
   private String searchFor;
+
+  public static final int MAX_LIMIT = 100;
+
+  // Page size of a search, every result when not set.
+  @Min(1)
+  @Max(MAX_LIMIT)
+  private Integer limit;
+
+  // nextCursor of the previous page, the first page when not set.
+  private String cursor;
+
+  public boolean isValidCursor() {
+    return cursor == null || PageCursor.toOffset(cursor) >= 0;
+  }
   
   public boolean isValidGeoLocation() {
     if (getLatitude() != null
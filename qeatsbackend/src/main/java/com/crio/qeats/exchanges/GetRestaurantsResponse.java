@@ -7,6 +7,7 @@
 package com.crio.qeats.exchanges;
 
 import com.crio.qeats.dto.Restaurant;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.util.List;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -51,7 +52,25 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class GetRestaurantsResponse {
   List<Restaurant> restaurants;
-    
+
+  // Set when part of a search missed its deadline or failed, so that callers can tell an
+  // incomplete result from an empty one; left out of the JSON otherwise.
+  @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+  boolean partial;
+
+  // Cursor of the next page of a paginated search, left out on the last page and on partial
+  // pages, whose ranking misses the sources that did not answer in time.
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  String nextCursor;
+
+  public GetRestaurantsResponse(List<Restaurant> restaurants) {
+    this.restaurants = restaurants;
+  }
+
+  public GetRestaurantsResponse(List<Restaurant> restaurants, boolean partial) {
+    this.restaurants = restaurants;
+    this.partial = partial;
+  }
 }
 
 // }
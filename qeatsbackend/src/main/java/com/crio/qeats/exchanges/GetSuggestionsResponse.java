@@ -0,0 +1,23 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.exchanges;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Completions of a partially typed search query, most popular first.
+// {
+//  "suggestions": ["Biryani", "Chicken Biryani", "Biryani House"]
+// }
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GetSuggestionsResponse {
+  List<String> suggestions;
+}
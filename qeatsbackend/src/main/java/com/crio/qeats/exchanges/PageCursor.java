@@ -0,0 +1,48 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.exchanges;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque cursor of a paginated search, handed out as nextCursor and sent back as cursor.
+ * It holds the position of the next result in the ranked list; results are ranked the same
+ * way on every request, so no state is kept on the server between pages.
+ */
+public class PageCursor {
+
+  private static final String PREFIX = "o:";
+
+  private PageCursor() {
+  }
+
+  public static String fromOffset(int offset) {
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString((PREFIX + offset).getBytes(StandardCharsets.US_ASCII));
+  }
+
+  /**
+   * Position encoded in a cursor.
+   * @param cursor cursor from {@link #fromOffset(int)}
+   * @return position, or -1 if the cursor is not one we handed out
+   */
+  public static int toOffset(String cursor) {
+    try {
+      String decoded = new String(Base64.getUrlDecoder().decode(cursor),
+          StandardCharsets.US_ASCII);
+      if (!decoded.startsWith(PREFIX)) {
+        return -1;
+      }
+      int offset = Integer.parseInt(decoded.substring(PREFIX.length()));
+      return offset >= 0 ? offset : -1;
+    } catch (IllegalArgumentException e) {
+      // Also covers NumberFormatException.
+      return -1;
+    }
+  }
+}
@@ -0,0 +1,294 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import ch.hsr.geohash.GeoHash;
+import ch.hsr.geohash.WGS84Point;
+import com.crio.qeats.dto.Item;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.utils.GeoUtils;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Immutable, in-memory view of the restaurants collection together with the indexes built
+ * over it. Restaurants are addressed by ordinal, which follows the order returned by the
+ * repository, so iterating a result bitset yields restaurants in their natural order.
+ */
+public class CatalogSnapshot {
+
+  // Requests from the same cell during the same slot, and the parallel legs of each, share
+  // one candidate set through this memo.
+  private static final int MAX_MEMOIZED_CELLS = 1024;
+
+  private final List<RestaurantEntity> restaurants;
+  private final Map<String, Integer> ordinalByRestaurantId;
+  private final Map<String, String> restaurantIdByDocumentId;
+  private final GeoHashGridIndex geoIndex;
+  private final OpenHoursIndex openHoursIndex;
+  private final TrigramIndex nameIndex;
+  private final ValueIndex attributeIndex;
+  private final ValueIndex itemNameIndex;
+  private final ValueIndex itemAttributeIndex;
+  private final SuggestionTrie suggestions;
+  private final FuzzyWordIndex words;
+  private final Cache<String, BitSet> restaurantsServingCell = CacheBuilder.newBuilder()
+      .maximumSize(MAX_MEMOIZED_CELLS)
+      .build();
+
+  public CatalogSnapshot(List<RestaurantEntity> restaurants, double cellSizeInKms) {
+    this(restaurants, Collections.emptyList(), cellSizeInKms);
+  }
+
+  /**
+   * Builds the snapshot and its indexes.
+   * @param restaurants all restaurants
+   * @param menus all menus, for the item indexes
+   * @param cellSizeInKms cell size of the spatial grid, usually the largest serving radius
+   */
+  public CatalogSnapshot(List<RestaurantEntity> restaurants, List<MenuEntity> menus,
+      double cellSizeInKms) {
+    this.restaurants = Collections.unmodifiableList(new ArrayList<>(restaurants));
+
+    double[] latitudes = new double[restaurants.size()];
+    double[] longitudes = new double[restaurants.size()];
+    int[] opensAtMinutes = new int[restaurants.size()];
+    int[] closesAtMinutes = new int[restaurants.size()];
+    String[] names = new String[restaurants.size()];
+    Map<String, Integer> ordinals = new HashMap<>(restaurants.size() * 2);
+    Map<String, String> restaurantIds = new HashMap<>(restaurants.size() * 2);
+    ValueIndex.Builder attributes = new ValueIndex.Builder();
+    SuggestionTrie.Builder suggestions = new SuggestionTrie.Builder();
+    FuzzyWordIndex.Builder words = new FuzzyWordIndex.Builder();
+    for (int ordinal = 0; ordinal < restaurants.size(); ordinal++) {
+      RestaurantEntity restaurantEntity = restaurants.get(ordinal);
+      latitudes[ordinal] = restaurantEntity.getLatitude() == null
+          ? Double.NaN : restaurantEntity.getLatitude();
+      longitudes[ordinal] = restaurantEntity.getLongitude() == null
+          ? Double.NaN : restaurantEntity.getLongitude();
+      opensAtMinutes[ordinal] = restaurantEntity.getOpensAtMinute();
+      closesAtMinutes[ordinal] = restaurantEntity.getClosesAtMinute();
+      names[ordinal] = restaurantEntity.getName();
+      suggestions.add(restaurantEntity.getName(), ordinal);
+      words.add(FuzzyWordIndex.Source.NAME, restaurantEntity.getName(), ordinal);
+      if (restaurantEntity.getAttributes() != null) {
+        for (String attribute : restaurantEntity.getAttributes()) {
+          attributes.add(attribute, ordinal);
+          suggestions.add(attribute, ordinal);
+          words.add(FuzzyWordIndex.Source.CUISINE, attribute, ordinal);
+        }
+      }
+      if (restaurantEntity.getRestaurantId() != null) {
+        ordinals.putIfAbsent(restaurantEntity.getRestaurantId(), ordinal);
+        if (restaurantEntity.getId() != null) {
+          restaurantIds.put(restaurantEntity.getId(), restaurantEntity.getRestaurantId());
+        }
+      }
+    }
+    this.ordinalByRestaurantId = ordinals;
+    this.restaurantIdByDocumentId = restaurantIds;
+    this.geoIndex = new GeoHashGridIndex(latitudes, longitudes, cellSizeInKms);
+    this.openHoursIndex = new OpenHoursIndex(opensAtMinutes, closesAtMinutes);
+    this.nameIndex = new TrigramIndex(names);
+
+    this.attributeIndex = attributes.build();
+
+    ValueIndex.Builder itemNames = new ValueIndex.Builder();
+    ValueIndex.Builder itemAttributes = new ValueIndex.Builder();
+    for (MenuEntity menu : menus) {
+      int ordinal = ordinalOf(menu.getRestaurantId());
+      if (ordinal < 0 || menu.getItems() == null) {
+        continue;
+      }
+      for (Item item : menu.getItems()) {
+        itemNames.add(item.getName(), ordinal);
+        suggestions.add(item.getName(), ordinal);
+        words.add(FuzzyWordIndex.Source.ITEM_NAME, item.getName(), ordinal);
+        if (item.getAttributes() != null) {
+          for (String attribute : item.getAttributes()) {
+            itemAttributes.add(attribute, ordinal);
+            words.add(FuzzyWordIndex.Source.ITEM_ATTRIBUTE, attribute, ordinal);
+          }
+        }
+      }
+    }
+    this.itemNameIndex = itemNames.build();
+    this.itemAttributeIndex = itemAttributes.build();
+    this.suggestions = suggestions.build();
+    this.words = words.build();
+  }
+
+  public int size() {
+    return restaurants.size();
+  }
+
+  public RestaurantEntity getRestaurant(int ordinal) {
+    return restaurants.get(ordinal);
+  }
+
+  /**
+   * Ordinal of a restaurant, or -1 if it is not part of this snapshot.
+   */
+  public int ordinalOf(String restaurantId) {
+    Integer ordinal = restaurantId == null ? null : ordinalByRestaurantId.get(restaurantId);
+    return ordinal == null ? -1 : ordinal;
+  }
+
+  /**
+   * Restaurant id of the document with this _id, or null if it is not part of this snapshot.
+   */
+  public String findRestaurantId(String documentId) {
+    return documentId == null ? null : restaurantIdByDocumentId.get(documentId);
+  }
+
+  public OpenHoursIndex getOpenHoursIndex() {
+    return openHoursIndex;
+  }
+
+  /**
+   * Ordinals of the restaurants strictly within the serving radius, open or not.
+   */
+  public BitSet findRestaurantsCloseBy(double latitude, double longitude,
+      double servingRadiusInKms) {
+    BitSet result = new BitSet(restaurants.size());
+    geoIndex.findWithinRadius(latitude, longitude, servingRadiusInKms, result);
+    return result;
+  }
+
+  /**
+   * Ordinals of the restaurants strictly within the serving radius and open at currentTime.
+   */
+  public BitSet findOpenRestaurantsCloseBy(double latitude, double longitude,
+      double servingRadiusInKms, LocalTime currentTime) {
+    BitSet result = findRestaurantsCloseBy(latitude, longitude, servingRadiusInKms);
+    openHoursIndex.retainOpen(result, currentTime);
+    return result;
+  }
+
+  /**
+   * Ordinals of the restaurants open during the slot that are within the serving radius of
+   * some point of the cell: those close by and open for any request from the cell during the
+   * slot, and a few more. Calls for the same cell, radius and slot share one result, which
+   * callers must not modify.
+   * @param slot slot of the day, see {@link OpenHoursIndex#slotOf(LocalTime)}
+   */
+  public BitSet findRestaurantsServingCell(GeoHash cell, double servingRadiusInKms, int slot) {
+    String key = cell.toBase32() + ":" + servingRadiusInKms + ":" + slot;
+    try {
+      return restaurantsServingCell.get(key, () -> {
+        WGS84Point center = cell.getBoundingBoxCenterPoint();
+        BitSet result = findRestaurantsCloseBy(center.getLatitude(), center.getLongitude(),
+            servingRadiusInKms + GeoUtils.findHalfDiagonalInKm(cell));
+        openHoursIndex.retainOpenDuringSlot(result, slot);
+        return result;
+      });
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /**
+   * Restaurants whose name contains the query, ignoring case: exact matches first, then
+   * partial matches, each in catalog order.
+   */
+  public List<RestaurantEntity> findRestaurantsByName(String query) {
+    BitSet exact = new BitSet(restaurants.size());
+    BitSet partial = findByName(TrigramIndex.fold(query), exact);
+    return collect(null, exact, partial);
+  }
+
+  /**
+   * Restaurants serving an item whose name contains the query, ignoring case: restaurants
+   * serving an exact match first, then the others, each in catalog order.
+   */
+  public List<RestaurantEntity> findRestaurantsByItemName(String query) {
+    BitSet exact = new BitSet(restaurants.size());
+    BitSet partial = itemNameIndex.findRestaurants(TrigramIndex.fold(query), exact);
+    return collect(null, exact, partial);
+  }
+
+  /**
+   * Answers a search query in one pass over all four sources, in the order of
+   * RestaurantService: restaurant name (exact, then partial), cuisine, item name (exact, then
+   * partial) and item attribute, ignoring case. Every restaurant is listed once, at its best
+   * rank, and restaurants of the same rank follow catalog order.
+   * @param query search string
+   * @param eligible if not null, only these ordinals are returned
+   */
+  public List<RestaurantEntity> search(String query, BitSet eligible) {
+    // Folded once for the four sources and every candidate they check.
+    String folded = TrigramIndex.fold(query);
+    BitSet exactNames = new BitSet(restaurants.size());
+    BitSet names = findByName(folded, exactNames);
+    BitSet cuisines = attributeIndex.findRestaurants(folded, null);
+    BitSet exactItemNames = new BitSet(restaurants.size());
+    BitSet itemNames = itemNameIndex.findRestaurants(folded, exactItemNames);
+    BitSet itemAttributes = itemAttributeIndex.findRestaurants(folded, null);
+    return collect(eligible, exactNames, names, cuisines, exactItemNames, itemNames,
+        itemAttributes);
+  }
+
+  /**
+   * Typo-tolerant search, for queries {@link #search} finds nothing for: restaurants in which
+   * every word of the query matches a word within a small edit distance, by source in the
+   * same order as search, each restaurant listed once.
+   * @param query search string
+   * @param eligible if not null, only these ordinals are returned
+   */
+  public List<RestaurantEntity> searchSimilar(String query, BitSet eligible) {
+    return collect(eligible, words.findRestaurants(query));
+  }
+
+  /**
+   * Autocomplete: the most popular restaurant names, cuisines and item names starting with
+   * the prefix, or with a word starting with it, ignoring case.
+   * @param prefix typed so far
+   * @param eligible if not null, only terms offered by one of these ordinals are returned
+   * @param limit maximum number of terms
+   */
+  public List<String> suggest(String prefix, BitSet eligible, int limit) {
+    return suggestions.complete(prefix, eligible, limit);
+  }
+
+  private BitSet findByName(String foldedQuery, BitSet exactMatches) {
+    BitSet partial = nameIndex.findContainingFolded(foldedQuery);
+    for (int i = partial.nextSetBit(0); i >= 0; i = partial.nextSetBit(i + 1)) {
+      if (nameIndex.isEqualFolded(i, foldedQuery)) {
+        exactMatches.set(i);
+      }
+    }
+    return partial;
+  }
+
+  /**
+   * Lists the restaurants of each rank in turn, skipping those already listed.
+   */
+  private List<RestaurantEntity> collect(BitSet eligible, BitSet... ranks) {
+    List<RestaurantEntity> result = new ArrayList<>();
+    BitSet listed = new BitSet(restaurants.size());
+    for (BitSet rank : ranks) {
+      if (eligible != null) {
+        rank.and(eligible);
+      }
+      rank.andNot(listed);
+      for (int i = rank.nextSetBit(0); i >= 0; i = rank.nextSetBit(i + 1)) {
+        result.add(restaurants.get(i));
+      }
+      listed.or(rank);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary of the words of restaurant names, cuisines, item names and item attributes, for
+ * typo-tolerant search. A lookup walks a trie of the dictionary while computing the Levenshtein
+ * distance to the query word one row per trie level, and abandons a branch as soon as every
+ * word below it is too far: the trie form of a Levenshtein automaton, which only visits the
+ * small part of the dictionary within reach.
+ */
+class FuzzyWordIndex {
+
+  enum Source {
+    NAME, CUISINE, ITEM_NAME, ITEM_ATTRIBUTE
+  }
+
+  private final Node root;
+
+  private FuzzyWordIndex(Node root) {
+    this.root = root;
+  }
+
+  /**
+   * Edits tolerated in a word of this length: none up to 3 characters, where a single edit
+   * already matches too much, then 1, and 2 from 8 characters.
+   */
+  static int maxEditsFor(int length) {
+    return length <= 3 ? 0 : length < 8 ? 1 : 2;
+  }
+
+  /**
+   * Restaurants of each source in which every word of the query matches some word within its
+   * edit distance, indexed by {@link Source#ordinal()}.
+   */
+  BitSet[] findRestaurants(String query) {
+    BitSet[] restaurants = new BitSet[Source.values().length];
+    List<String> queryWords = wordsOf(TrigramIndex.fold(query));
+    for (int source = 0; source < restaurants.length; source++) {
+      restaurants[source] = new BitSet();
+    }
+    if (queryWords.isEmpty()) {
+      return restaurants;
+    }
+
+    boolean first = true;
+    for (String queryWord : queryWords) {
+      BitSet[] matches = new BitSet[restaurants.length];
+      for (int source = 0; source < matches.length; source++) {
+        matches[source] = new BitSet();
+      }
+      for (Node word : findSimilar(queryWord, maxEditsFor(queryWord.length()))) {
+        for (int source = 0; source < matches.length; source++) {
+          if (word.restaurants[source] != null) {
+            matches[source].or(word.restaurants[source]);
+          }
+        }
+      }
+      for (int source = 0; source < restaurants.length; source++) {
+        if (first) {
+          restaurants[source] = matches[source];
+        } else {
+          restaurants[source].and(matches[source]);
+        }
+      }
+      first = false;
+    }
+    return restaurants;
+  }
+
+  /**
+   * Words of the dictionary within maxEdits of the word.
+   */
+  List<String> findSimilarWords(String word, int maxEdits) {
+    List<String> words = new ArrayList<>();
+    for (Node node : findSimilar(TrigramIndex.fold(word), maxEdits)) {
+      words.add(node.word);
+    }
+    return words;
+  }
+
+  private List<Node> findSimilar(String word, int maxEdits) {
+    List<Node> matches = new ArrayList<>();
+    int[] firstRow = new int[word.length() + 1];
+    for (int i = 0; i < firstRow.length; i++) {
+      firstRow[i] = i;
+    }
+    for (Map.Entry<Character, Node> child : root.children.entrySet()) {
+      walk(child.getValue(), child.getKey(), word, firstRow, maxEdits, matches);
+    }
+    return matches;
+  }
+
+  private static void walk(Node node, char letter, String word, int[] previousRow,
+      int maxEdits, List<Node> matches) {
+    int[] row = new int[previousRow.length];
+    row[0] = previousRow[0] + 1;
+    int rowMinimum = row[0];
+    for (int i = 1; i < row.length; i++) {
+      int substitution = previousRow[i - 1] + (word.charAt(i - 1) == letter ? 0 : 1);
+      row[i] = Math.min(substitution, Math.min(row[i - 1] + 1, previousRow[i] + 1));
+      rowMinimum = Math.min(rowMinimum, row[i]);
+    }
+
+    if (node.word != null && row[row.length - 1] <= maxEdits) {
+      matches.add(node);
+    }
+    // Distances only grow further down; nothing below can come back within reach.
+    if (rowMinimum <= maxEdits) {
+      for (Map.Entry<Character, Node> child : node.children.entrySet()) {
+        walk(child.getValue(), child.getKey(), word, row, maxEdits, matches);
+      }
+    }
+  }
+
+  private static List<String> wordsOf(String text) {
+    List<String> words = new ArrayList<>();
+    int start = -1;
+    for (int i = 0; i <= text.length(); i++) {
+      boolean inWord = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+      if (inWord && start < 0) {
+        start = i;
+      } else if (!inWord && start >= 0) {
+        words.add(text.substring(start, i));
+        start = -1;
+      }
+    }
+    return words;
+  }
+
+  private static class Node {
+    final Map<Character, Node> children = new HashMap<>(4);
+    // Set on the last letter of a dictionary word.
+    String word;
+    // Restaurants having the word, by source; null when none.
+    BitSet[] restaurants;
+  }
+
+  static class Builder {
+
+    private final Node root = new Node();
+
+    Builder add(Source source, String text, int ordinal) {
+      if (text == null) {
+        return this;
+      }
+      for (String word : wordsOf(TrigramIndex.fold(text))) {
+        Node node = root;
+        for (int i = 0; i < word.length(); i++) {
+          node = node.children.computeIfAbsent(word.charAt(i), k -> new Node());
+        }
+        if (node.word == null) {
+          node.word = word;
+          node.restaurants = new BitSet[Source.values().length];
+        }
+        if (node.restaurants[source.ordinal()] == null) {
+          node.restaurants[source.ordinal()] = new BitSet();
+        }
+        node.restaurants[source.ordinal()].set(ordinal);
+      }
+      return this;
+    }
+
+    FuzzyWordIndex build() {
+      return new FuzzyWordIndex(root);
+    }
+  }
+}
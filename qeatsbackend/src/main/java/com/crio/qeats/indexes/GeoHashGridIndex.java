@@ -0,0 +1,176 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import com.crio.qeats.utils.GeoUtils;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Resident spatial index over restaurant coordinates.
+ * Restaurants are bucketed into a lat/long grid whose cells line up with geohash cells of
+ * {@code 2 * bitsPerAxis} bits. A radius query only visits the cells that can intersect the
+ * circle (the 3x3 neighbourhood when the radius is not larger than a cell) and checks the exact
+ * distance against primitive lat/long arrays.
+ * Restaurants are identified by their ordinal, i.e. their position in the arrays passed in.
+ */
+public class GeoHashGridIndex {
+
+  // Same earth radius as GeoUtils, so the cell maths agrees with the distance check.
+  private static final double KM_PER_DEGREE = 6371 * Math.PI / 180;
+
+  private static final int MAX_BITS_PER_AXIS = 16;
+
+  private final int bitsPerAxis;
+  private final int cellsPerAxis;
+  private final double latCellDegrees;
+  private final double lonCellDegrees;
+
+  private final double[] latitudes;
+  private final double[] longitudes;
+
+  // Compressed layout: members[cellStarts[i] .. cellStarts[i + 1]) live in cell cellKeys[i].
+  private final long[] cellKeys;
+  private final int[] cellStarts;
+  private final int[] members;
+
+  /**
+   * Builds the grid.
+   * @param latitudes latitude of every restaurant, indexed by ordinal
+   * @param longitudes longitude of every restaurant, indexed by ordinal
+   * @param cellSizeInKms minimum cell height; use the largest serving radius so that a query
+   *     touches at most a 3x3 neighbourhood
+   */
+  public GeoHashGridIndex(double[] latitudes, double[] longitudes, double cellSizeInKms) {
+    if (latitudes.length != longitudes.length) {
+      throw new IllegalArgumentException("latitudes and longitudes must have the same length");
+    }
+    this.bitsPerAxis = bitsForCellSize(cellSizeInKms);
+    this.cellsPerAxis = 1 << bitsPerAxis;
+    this.latCellDegrees = 180.0 / cellsPerAxis;
+    this.lonCellDegrees = 360.0 / cellsPerAxis;
+    this.latitudes = latitudes;
+    this.longitudes = longitudes;
+
+    // Sort (cell, ordinal) pairs packed into a long so that the build stays allocation-light.
+    long[] packed = new long[latitudes.length];
+    int count = 0;
+    for (int ordinal = 0; ordinal < latitudes.length; ordinal++) {
+      if (Double.isNaN(latitudes[ordinal]) || Double.isNaN(longitudes[ordinal])) {
+        continue;
+      }
+      long key = cellKey(latIndex(latitudes[ordinal]), lonIndex(longitudes[ordinal]));
+      packed[count++] = (key << 31) | ordinal;
+    }
+    Arrays.sort(packed, 0, count);
+
+    long[] keys = new long[count];
+    int[] starts = new int[count + 1];
+    int[] ordinals = new int[count];
+    int cells = 0;
+    for (int i = 0; i < count; i++) {
+      long key = packed[i] >>> 31;
+      if (cells == 0 || keys[cells - 1] != key) {
+        keys[cells] = key;
+        starts[cells] = i;
+        cells++;
+      }
+      ordinals[i] = (int) (packed[i] & Integer.MAX_VALUE);
+    }
+    starts[cells] = count;
+
+    this.cellKeys = Arrays.copyOf(keys, cells);
+    this.cellStarts = Arrays.copyOf(starts, cells + 1);
+    this.members = ordinals;
+  }
+
+  /**
+   * Collects the ordinals of all restaurants strictly closer than the given radius.
+   * @param latitude query latitude
+   * @param longitude query longitude
+   * @param radiusInKms serving radius
+   * @param result bitset to which matching ordinals are added
+   */
+  public void findWithinRadius(double latitude, double longitude, double radiusInKms,
+      BitSet result) {
+    int centerLat = latIndex(latitude);
+    int centerLon = lonIndex(longitude);
+
+    double latSpan = radiusInKms / KM_PER_DEGREE;
+    int latRings = (int) Math.ceil(latSpan / latCellDegrees);
+
+    // The circle is widest (in degrees of longitude) at its edge closest to a pole.
+    double farthestLat = Math.abs(latitude) + latSpan;
+    int lonRings = cellsPerAxis;
+    if (farthestLat < 90.0) {
+      double lonSpan = latSpan / Math.cos(Math.toRadians(farthestLat));
+      lonRings = (int) Math.ceil(lonSpan / lonCellDegrees);
+    }
+    boolean allColumns = 2 * lonRings + 1 >= cellsPerAxis;
+
+    int fromLat = Math.max(0, centerLat - latRings);
+    int toLat = Math.min(cellsPerAxis - 1, centerLat + latRings);
+    for (int row = fromLat; row <= toLat; row++) {
+      if (allColumns) {
+        for (int column = 0; column < cellsPerAxis; column++) {
+          scanCell(cellKey(row, column), latitude, longitude, radiusInKms, result);
+        }
+      } else {
+        for (int offset = -lonRings; offset <= lonRings; offset++) {
+          int column = (centerLon + offset + cellsPerAxis) & (cellsPerAxis - 1);
+          scanCell(cellKey(row, column), latitude, longitude, radiusInKms, result);
+        }
+      }
+    }
+  }
+
+  public int getBitsPerAxis() {
+    return bitsPerAxis;
+  }
+
+  public int getCellCount() {
+    return cellKeys.length;
+  }
+
+  private void scanCell(long key, double latitude, double longitude, double radiusInKms,
+      BitSet result) {
+    int cell = Arrays.binarySearch(cellKeys, key);
+    if (cell < 0) {
+      return;
+    }
+    for (int i = cellStarts[cell]; i < cellStarts[cell + 1]; i++) {
+      int ordinal = members[i];
+      if (GeoUtils.findDistanceInKm(latitude, longitude,
+          latitudes[ordinal], longitudes[ordinal]) < radiusInKms) {
+        result.set(ordinal);
+      }
+    }
+  }
+
+  private long cellKey(int row, int column) {
+    return ((long) row << bitsPerAxis) | column;
+  }
+
+  private int latIndex(double latitude) {
+    int index = (int) Math.floor((latitude + 90.0) / latCellDegrees);
+    return Math.max(0, Math.min(cellsPerAxis - 1, index));
+  }
+
+  private int lonIndex(double longitude) {
+    int index = (int) Math.floor((longitude + 180.0) / lonCellDegrees);
+    return Math.max(0, Math.min(cellsPerAxis - 1, index));
+  }
+
+  private static int bitsForCellSize(double cellSizeInKms) {
+    int bits = 1;
+    while (bits < MAX_BITS_PER_AXIS
+        && 180.0 * KM_PER_DEGREE / (1 << (bits + 1)) >= cellSizeInKms) {
+      bits++;
+    }
+    return bits;
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import com.crio.qeats.cache.SearchResultCache;
+import com.crio.qeats.models.MenuEntity;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rebuilds the in-memory catalog, and with it the item name index, in the background when a
+ * menu is written through Spring Data, and drops the cached search results once the new
+ * snapshot serves. The current snapshot keeps serving meanwhile.
+ */
+@Log4j2
+@Component
+public class MenuChangeListener extends AbstractMongoEventListener<MenuEntity> {
+
+  @Autowired
+  private RestaurantCatalog restaurantCatalog;
+
+  @Autowired
+  private SearchResultCache searchResultCache;
+
+  @Override
+  public void onAfterSave(AfterSaveEvent<MenuEntity> event) {
+    menuChanged();
+    log.debug("Menu of restaurant {} changed, catalog refresh scheduled",
+        event.getSource().getRestaurantId());
+  }
+
+  @Override
+  public void onAfterDelete(AfterDeleteEvent<MenuEntity> event) {
+    menuChanged();
+    log.debug("Menu deleted, catalog refresh scheduled");
+  }
+
+  private void menuChanged() {
+    restaurantCatalog.refreshLater().whenComplete((catalog, e) -> {
+      try {
+        searchResultCache.invalidateAll();
+      } catch (RuntimeException evictionFailure) {
+        log.warn("Could not drop cached search results after the catalog refresh",
+            evictionFailure);
+      }
+    });
+  }
+}
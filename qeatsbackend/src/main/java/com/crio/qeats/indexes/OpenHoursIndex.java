@@ -0,0 +1,125 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import com.crio.qeats.utils.OpeningHoursUtils;
+import java.time.LocalTime;
+import java.util.BitSet;
+
+/**
+ * Precomputed opening schedule of every restaurant, split into fifteen minute slots.
+ * For each slot it keeps the restaurants open throughout the slot and the ones open at some
+ * instant of it, so that "open now" becomes a bitwise AND plus an exact check of the few
+ * restaurants opening or closing within the current slot.
+ * Restaurants are identified by ordinal, as in {@link GeoHashGridIndex}.
+ */
+public class OpenHoursIndex {
+
+  public static final int SLOT_MINUTES = 15;
+  public static final int SLOTS_PER_DAY = OpeningHoursUtils.MINUTES_PER_DAY / SLOT_MINUTES;
+
+  private final int[] opensAtMinutes;
+  private final int[] closesAtMinutes;
+
+  private final BitSet[] openThroughoutSlot = new BitSet[SLOTS_PER_DAY];
+  private final BitSet[] openDuringSlot = new BitSet[SLOTS_PER_DAY];
+
+  /**
+   * Builds the per-slot bitsets.
+   * @param opensAtMinutes opening minute of the day of every restaurant, indexed by ordinal
+   * @param closesAtMinutes closing minute of the day of every restaurant, indexed by ordinal
+   */
+  public OpenHoursIndex(int[] opensAtMinutes, int[] closesAtMinutes) {
+    this.opensAtMinutes = opensAtMinutes;
+    this.closesAtMinutes = closesAtMinutes;
+    for (int slot = 0; slot < SLOTS_PER_DAY; slot++) {
+      openThroughoutSlot[slot] = new BitSet(opensAtMinutes.length);
+      openDuringSlot[slot] = new BitSet(opensAtMinutes.length);
+    }
+    for (int ordinal = 0; ordinal < opensAtMinutes.length; ordinal++) {
+      for (int slot = 0; slot < SLOTS_PER_DAY; slot++) {
+        if (isOpenThroughoutSlot(opensAtMinutes[ordinal], closesAtMinutes[ordinal], slot)) {
+          openThroughoutSlot[slot].set(ordinal);
+        }
+        if (isOpenDuringSlot(opensAtMinutes[ordinal], closesAtMinutes[ordinal], slot)) {
+          openDuringSlot[slot].set(ordinal);
+        }
+      }
+    }
+  }
+
+  public static int slotOf(LocalTime time) {
+    return (time.getHour() * 60 + time.getMinute()) / SLOT_MINUTES;
+  }
+
+  /**
+   * Keeps only the candidates that are open at the given time.
+   * @param candidates ordinals to filter, modified in place
+   * @param currentTime current time
+   */
+  public void retainOpen(BitSet candidates, LocalTime currentTime) {
+    int slot = slotOf(currentTime);
+    BitSet changingWithinSlot = (BitSet) candidates.clone();
+    changingWithinSlot.and(openDuringSlot[slot]);
+    changingWithinSlot.andNot(openThroughoutSlot[slot]);
+
+    candidates.and(openThroughoutSlot[slot]);
+    for (int i = changingWithinSlot.nextSetBit(0); i >= 0;
+        i = changingWithinSlot.nextSetBit(i + 1)) {
+      if (OpeningHoursUtils.isOpen(opensAtMinutes[i], closesAtMinutes[i], currentTime)) {
+        candidates.set(i);
+      }
+    }
+  }
+
+  /**
+   * Keeps only the candidates that are open at some instant of the slot.
+   * @param candidates ordinals to filter, modified in place
+   * @param slot slot of the day, see {@link #slotOf(LocalTime)}
+   */
+  public void retainOpenDuringSlot(BitSet candidates, int slot) {
+    candidates.and(openDuringSlot[slot]);
+  }
+
+  /**
+   * Checks whether a restaurant is open throughout the slot [start, start + 15 minutes).
+   * The restaurant is open on (opensAt, closesAt), or on (opensAt, midnight) and
+   * [midnight, closesAt) when it closes after midnight.
+   */
+  static boolean isOpenThroughoutSlot(int opensAtMinute, int closesAtMinute, int slot) {
+    if (!hasOpeningHours(opensAtMinute, closesAtMinute)) {
+      return false;
+    }
+    int start = slot * SLOT_MINUTES;
+    int end = start + SLOT_MINUTES;
+    if (opensAtMinute < closesAtMinute) {
+      return opensAtMinute < start && end <= closesAtMinute;
+    }
+    return opensAtMinute < start || end <= closesAtMinute;
+  }
+
+  /**
+   * Checks whether a restaurant is open at some instant of the slot [start, start + 15 minutes).
+   */
+  public static boolean isOpenDuringSlot(int opensAtMinute, int closesAtMinute, int slot) {
+    if (!hasOpeningHours(opensAtMinute, closesAtMinute)) {
+      return false;
+    }
+    int start = slot * SLOT_MINUTES;
+    int end = start + SLOT_MINUTES;
+    if (opensAtMinute < closesAtMinute) {
+      return Math.max(opensAtMinute, start) < Math.min(closesAtMinute, end);
+    }
+    return Math.max(opensAtMinute, start) < end || start < closesAtMinute;
+  }
+
+  private static boolean hasOpeningHours(int opensAtMinute, int closesAtMinute) {
+    return opensAtMinute != OpeningHoursUtils.UNKNOWN
+        && closesAtMinute != OpeningHoursUtils.UNKNOWN
+        && opensAtMinute != closesAtMinute;
+  }
+}
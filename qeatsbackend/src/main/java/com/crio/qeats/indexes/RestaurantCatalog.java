@@ -0,0 +1,210 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.MenuRepository;
+import com.crio.qeats.repositories.RestaurantRepository;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Owns the resident {@link CatalogSnapshot}.
+ * The snapshot is built once at startup (when preloading is enabled) or lazily on first use,
+ * and rebuilt on the next access after {@link #invalidate()}, or in the background after
+ * {@link #refreshLater()} while the current one keeps serving.
+ * Both bump a generation; a load only installs its snapshot if the generation did not change
+ * while it ran, so a slow load never replaces a snapshot read after a later write.
+ */
+@Component
+@Log4j2
+public class RestaurantCatalog {
+
+  @Autowired
+  private RestaurantRepository restaurantRepository;
+
+  @Autowired
+  private MenuRepository menuRepository;
+
+  @Value("${qeats.catalog.preload:true}")
+  private boolean preload;
+
+  @Value("${qeats.catalog.grid-cell-size-km:5.0}")
+  private double gridCellSizeInKms;
+
+  @Value("${qeats.catalog.refresh-delay-ms:1000}")
+  private long refreshDelayInMs;
+
+  private volatile CatalogSnapshot snapshot;
+
+  // Bumped by every change to the collections; guarded by this, as is installing a snapshot.
+  private long generation;
+
+  // Held while loading on a request thread, so that concurrent requests wait for one load.
+  private final Object loadLock = new Object();
+
+  private ScheduledExecutorService refresher;
+
+  // The refresh the next write joins, null when none is scheduled; guarded by this.
+  private CompletableFuture<CatalogSnapshot> pendingRefresh;
+
+  @PostConstruct
+  public void initRefresher() {
+    refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "catalog-refresh");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  @PreDestroy
+  public void shutdownRefresher() {
+    refresher.shutdownNow();
+  }
+
+  /**
+   * Builds the snapshot as soon as the application is up, so the first request does not pay
+   * for the full collection scan.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void preloadOnStartup() {
+    if (!preload) {
+      return;
+    }
+    try {
+      getSnapshot();
+    } catch (RuntimeException e) {
+      log.warn("Could not preload restaurant catalog, will retry on first use", e);
+    }
+  }
+
+  /**
+   * Returns the current snapshot, loading it from the repository if needed.
+   * @return snapshot of all restaurants
+   */
+  public CatalogSnapshot getSnapshot() {
+    CatalogSnapshot current = snapshot;
+    if (current == null) {
+      synchronized (loadLock) {
+        current = snapshot;
+        if (current == null) {
+          long loadedGeneration = getGeneration();
+          current = load();
+          // Served to this request even if a change since keeps it from being installed.
+          install(current, loadedGeneration);
+        }
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Returns the current snapshot, or null if it is not loaded; never loads it.
+   */
+  public CatalogSnapshot getLoadedSnapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Drops the current snapshot; the next access reloads it.
+   */
+  public synchronized void invalidate() {
+    generation++;
+    snapshot = null;
+  }
+
+  /**
+   * Rebuilds the snapshot in the background, the refresh delay after the first call since the
+   * last rebuild, so that a burst of writes costs one rebuild. The current snapshot keeps
+   * serving until then. Nothing is loaded when no snapshot is loaded, the next access does it.
+   * @return completes with the new snapshot, or null, once it replaced the current one
+   */
+  public synchronized CompletableFuture<CatalogSnapshot> refreshLater() {
+    generation++;
+    return scheduleRefresh();
+  }
+
+  private synchronized CompletableFuture<CatalogSnapshot> scheduleRefresh() {
+    if (pendingRefresh == null) {
+      CompletableFuture<CatalogSnapshot> refresh = new CompletableFuture<>();
+      pendingRefresh = refresh;
+      refresher.schedule(() -> refresh(refresh), refreshDelayInMs, TimeUnit.MILLISECONDS);
+    }
+    return pendingRefresh;
+  }
+
+  private void refresh(CompletableFuture<CatalogSnapshot> refresh) {
+    long loadedGeneration;
+    synchronized (this) {
+      // Writes from now on may be missed by this load, they schedule the next one.
+      pendingRefresh = null;
+      if (snapshot == null) {
+        refresh.complete(null);
+        return;
+      }
+      loadedGeneration = generation;
+    }
+    try {
+      CatalogSnapshot loaded = load();
+      if (install(loaded, loadedGeneration)) {
+        refresh.complete(loaded);
+      } else {
+        // Superseded by a write during the load: done once the refresh it scheduled is.
+        scheduleRefresh().whenComplete((next, e) -> {
+          if (e != null) {
+            refresh.completeExceptionally(e);
+          } else {
+            refresh.complete(next);
+          }
+        });
+      }
+    } catch (RuntimeException e) {
+      log.warn("Could not refresh restaurant catalog, reloading on next use", e);
+      invalidate();
+      refresh.completeExceptionally(e);
+    }
+  }
+
+  private synchronized long getGeneration() {
+    return generation;
+  }
+
+  /**
+   * Installs a snapshot loaded at the given generation, unless a change happened since.
+   * @return whether the snapshot was installed
+   */
+  private synchronized boolean install(CatalogSnapshot loaded, long loadedGeneration) {
+    if (generation != loadedGeneration) {
+      return false;
+    }
+    snapshot = loaded;
+    return true;
+  }
+
+  private CatalogSnapshot load() {
+    long start = System.currentTimeMillis();
+    List<RestaurantEntity> restaurantEntityList = restaurantRepository.findAll();
+    List<MenuEntity> menuEntityList = menuRepository.findAll();
+    CatalogSnapshot loaded = new CatalogSnapshot(restaurantEntityList, menuEntityList,
+        gridCellSizeInKms);
+    log.info("Loaded {} restaurants and {} menus into the catalog in {} ms",
+        loaded.size(), menuEntityList.size(), System.currentTimeMillis() - start);
+    return loaded;
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prefix trie over the terms people search for (restaurant names, cuisines, item names), for
+ * autocomplete. Every word of a term starts a path, so "bir" completes "Chicken Biryani".
+ * Each node keeps the most popular terms below it, so a lookup walks down the prefix and
+ * usually scans at most {@link #MAX_COMPLETIONS_PER_PREFIX} terms. When too few of those are
+ * offered by eligible restaurants, the lookup walks the whole subtree of the prefix instead.
+ * A term is as popular as the number of restaurants offering it.
+ */
+public class SuggestionTrie {
+
+  static final int MAX_COMPLETIONS_PER_PREFIX = 32;
+
+  private final Node root = new Node();
+  private final String[] terms;
+  private final BitSet[] restaurantsByTerm;
+
+  private SuggestionTrie(List<Term> rankedTerms) {
+    terms = new String[rankedTerms.size()];
+    restaurantsByTerm = new BitSet[rankedTerms.size()];
+    for (int id = 0; id < terms.length; id++) {
+      Term term = rankedTerms.get(id);
+      terms[id] = term.text;
+      restaurantsByTerm[id] = term.restaurants;
+      String folded = TrigramIndex.fold(term.text);
+      for (int start = 0; start < folded.length(); start++) {
+        if (isWordStart(folded, start)) {
+          insert(folded, start, id);
+        }
+      }
+    }
+  }
+
+  /**
+   * Most popular terms starting with the prefix, or with a word starting with it, ignoring
+   * case.
+   * @param prefix typed so far
+   * @param eligible if not null, only terms offered by one of these restaurants are returned
+   * @param limit maximum number of terms
+   */
+  public List<String> complete(String prefix, BitSet eligible, int limit) {
+    if (prefix == null || prefix.trim().isEmpty()) {
+      return Collections.emptyList();
+    }
+    Node node = root;
+    String folded = TrigramIndex.fold(prefix.trim());
+    for (int i = 0; i < folded.length() && node != null; i++) {
+      node = node.children.get(folded.charAt(i));
+    }
+    if (node == null) {
+      return Collections.emptyList();
+    }
+
+    List<String> completions = new ArrayList<>(Math.min(limit, node.size));
+    for (int i = 0; i < node.size && completions.size() < limit; i++) {
+      int id = node.completions[i];
+      if (eligible == null || restaurantsByTerm[id].intersects(eligible)) {
+        completions.add(terms[id]);
+      }
+    }
+    if (completions.size() < limit && node.size == MAX_COMPLETIONS_PER_PREFIX) {
+      // The node's list was cut at the most popular terms; ids follow popularity, so the
+      // terms ending below the node, in id order, are all the completions ranked.
+      BitSet ids = new BitSet(terms.length);
+      collectEnds(node, ids);
+      completions.clear();
+      for (int id = ids.nextSetBit(0); id >= 0 && completions.size() < limit;
+          id = ids.nextSetBit(id + 1)) {
+        if (eligible == null || restaurantsByTerm[id].intersects(eligible)) {
+          completions.add(terms[id]);
+        }
+      }
+    }
+    return completions;
+  }
+
+  private static void collectEnds(Node node, BitSet ids) {
+    for (int i = 0; i < node.endCount; i++) {
+      ids.set(node.ends[i]);
+    }
+    for (Node child : node.children.values()) {
+      collectEnds(child, ids);
+    }
+  }
+
+  /**
+   * Adds the path of a term from one of its word starts. Terms are inserted most popular
+   * first, so every node's completions end up ranked.
+   */
+  private void insert(String folded, int start, int id) {
+    Node node = root;
+    for (int i = start; i < folded.length(); i++) {
+      node = node.children.computeIfAbsent(folded.charAt(i), k -> new Node());
+      // A term repeating a word reaches the same nodes twice.
+      if (node.size < MAX_COMPLETIONS_PER_PREFIX
+          && (node.size == 0 || node.completions[node.size - 1] != id)) {
+        if (node.size == node.completions.length) {
+          node.completions = Arrays.copyOf(node.completions,
+              Math.min(MAX_COMPLETIONS_PER_PREFIX, Math.max(2, node.size * 2)));
+        }
+        node.completions[node.size++] = id;
+      }
+    }
+    if (node.endCount == 0 || node.ends[node.endCount - 1] != id) {
+      if (node.endCount == node.ends.length) {
+        node.ends = Arrays.copyOf(node.ends, Math.max(2, node.endCount * 2));
+      }
+      node.ends[node.endCount++] = id;
+    }
+  }
+
+  private static boolean isWordStart(String text, int index) {
+    return Character.isLetterOrDigit(text.charAt(index))
+        && (index == 0 || !Character.isLetterOrDigit(text.charAt(index - 1)));
+  }
+
+  private static class Node {
+    final Map<Character, Node> children = new HashMap<>(4);
+    int[] completions = new int[0];
+    int size;
+    // Terms whose path from one of their word starts ends here.
+    int[] ends = new int[0];
+    int endCount;
+  }
+
+  private static class Term {
+    final String text;
+    final BitSet restaurants = new BitSet();
+
+    Term(String text) {
+      this.text = text;
+    }
+  }
+
+  static class Builder {
+
+    // Terms differing only in case are one suggestion, shown as first seen.
+    private final Map<String, Term> termsByFoldedText = new LinkedHashMap<>();
+
+    Builder add(String term, int ordinal) {
+      if (term != null && !term.trim().isEmpty()) {
+        String text = term.trim();
+        termsByFoldedText.computeIfAbsent(TrigramIndex.fold(text), k -> new Term(text))
+            .restaurants.set(ordinal);
+      }
+      return this;
+    }
+
+    SuggestionTrie build() {
+      List<Term> rankedTerms = new ArrayList<>(termsByFoldedText.values());
+      rankedTerms.sort((left, right) -> {
+        int byPopularity = Integer.compare(right.restaurants.cardinality(),
+            left.restaurants.cardinality());
+        return byPopularity != 0 ? byPopularity : left.text.compareToIgnoreCase(right.text);
+      });
+      return new SuggestionTrie(rankedTerms);
+    }
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import com.crio.qeats.utils.TextNormalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Substring index over a fixed array of texts, matching as normalized by TextNormalizer.
+ * Every text is broken into its trigrams (three consecutive characters), each trigram keeping
+ * the sorted ordinals of the texts containing it. A query intersects the posting lists of its
+ * own trigrams and verifies the remaining candidates, so a lookup only touches texts sharing
+ * all of the query's trigrams. Queries shorter than a trigram check every text.
+ */
+public class TrigramIndex {
+
+  static final int GRAM_LENGTH = 3;
+
+  private final String[] texts;
+  private final Map<Long, int[]> postings;
+
+  /**
+   * Builds the index.
+   * @param texts text of each ordinal, null for none
+   */
+  public TrigramIndex(String[] texts) {
+    this.texts = new String[texts.length];
+    Map<Long, List<Integer>> postingLists = new HashMap<>();
+    for (int ordinal = 0; ordinal < texts.length; ordinal++) {
+      if (texts[ordinal] == null) {
+        continue;
+      }
+      String text = fold(texts[ordinal]);
+      this.texts[ordinal] = text;
+      for (long trigram : trigramsOf(text)) {
+        postingLists.computeIfAbsent(trigram, k -> new ArrayList<>()).add(ordinal);
+      }
+    }
+
+    this.postings = new HashMap<>(postingLists.size() * 2);
+    for (Map.Entry<Long, List<Integer>> entry : postingLists.entrySet()) {
+      List<Integer> ordinals = entry.getValue();
+      int[] posting = new int[ordinals.size()];
+      for (int i = 0; i < posting.length; i++) {
+        posting[i] = ordinals.get(i);
+      }
+      postings.put(entry.getKey(), posting);
+    }
+  }
+
+  public int size() {
+    return texts.length;
+  }
+
+  /**
+   * Whether the text of an ordinal equals the query, ignoring case, accents and spacing.
+   */
+  public boolean isEqual(int ordinal, String query) {
+    return isEqualFolded(ordinal, fold(query));
+  }
+
+  /**
+   * Same as {@link #isEqual} for a query already folded by {@link #fold}, so that a search
+   * checking many ordinals folds its query once.
+   */
+  public boolean isEqualFolded(int ordinal, String folded) {
+    return texts[ordinal] != null && folded != null && texts[ordinal].equals(folded);
+  }
+
+  /**
+   * Ordinals of the texts containing the query, ignoring case, accents and spacing.
+   */
+  public BitSet findContaining(String query) {
+    return findContainingFolded(fold(query));
+  }
+
+  /**
+   * Same as {@link #findContaining} for a query already folded by {@link #fold}.
+   */
+  public BitSet findContainingFolded(String folded) {
+    BitSet result = new BitSet(texts.length);
+    if (folded == null || folded.isEmpty()) {
+      return result;
+    }
+    if (folded.length() < GRAM_LENGTH) {
+      for (int ordinal = 0; ordinal < texts.length; ordinal++) {
+        if (texts[ordinal] != null && texts[ordinal].contains(folded)) {
+          result.set(ordinal);
+        }
+      }
+      return result;
+    }
+
+    Set<Long> trigrams = trigramsOf(folded);
+    List<int[]> lists = new ArrayList<>(trigrams.size());
+    for (long trigram : trigrams) {
+      int[] posting = postings.get(trigram);
+      if (posting == null) {
+        return result;
+      }
+      lists.add(posting);
+    }
+    // Smallest first keeps every intersection at most as long as the rarest trigram.
+    lists.sort(Comparator.comparingInt(posting -> posting.length));
+    int[] candidates = lists.get(0);
+    for (int i = 1; i < lists.size() && candidates.length > 0; i++) {
+      candidates = intersect(candidates, lists.get(i));
+    }
+
+    // Sharing every trigram does not make the query a substring, e.g. "abcab" for "cabc".
+    for (int ordinal : candidates) {
+      if (texts[ordinal].contains(folded)) {
+        result.set(ordinal);
+      }
+    }
+    return result;
+  }
+
+  static String fold(String text) {
+    return TextNormalizer.normalize(text);
+  }
+
+  private static Set<Long> trigramsOf(String text) {
+    Set<Long> trigrams = new LinkedHashSet<>();
+    for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+      trigrams.add(((long) text.charAt(i) << 32)
+          | ((long) text.charAt(i + 1) << 16)
+          | text.charAt(i + 2));
+    }
+    return trigrams;
+  }
+
+  private static int[] intersect(int[] left, int[] right) {
+    int[] result = new int[Math.min(left.length, right.length)];
+    int size = 0;
+    int i = 0;
+    int j = 0;
+    while (i < left.length && j < right.length) {
+      if (left[i] < right[j]) {
+        i++;
+      } else if (left[i] > right[j]) {
+        j++;
+      } else {
+        result[size++] = left[i];
+        i++;
+        j++;
+      }
+    }
+    return Arrays.copyOf(result, size);
+  }
+}
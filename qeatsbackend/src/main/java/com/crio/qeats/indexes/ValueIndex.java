@@ -0,0 +1,62 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Joins the distinct values of a restaurant field (cuisines, or the names and attributes of
+ * the items on their menus) to the restaurants carrying them, with a {@link TrigramIndex} to
+ * find the values matching a query.
+ */
+class ValueIndex {
+
+  private final TrigramIndex index;
+  // Ordinals of the restaurants carrying each value of the index.
+  private final BitSet[] restaurantsByValue;
+
+  private ValueIndex(Map<String, BitSet> restaurantsByValue) {
+    this.index = new TrigramIndex(restaurantsByValue.keySet().toArray(new String[0]));
+    this.restaurantsByValue = restaurantsByValue.values().toArray(new BitSet[0]);
+  }
+
+  /**
+   * Restaurants carrying a value that contains the query, ignoring case.
+   * @param foldedQuery search string, folded by {@link TrigramIndex#fold}
+   * @param exactMatches if not null, also receives the restaurants carrying a value equal to
+   *     the query
+   */
+  BitSet findRestaurants(String foldedQuery, BitSet exactMatches) {
+    BitSet restaurants = new BitSet();
+    BitSet values = index.findContainingFolded(foldedQuery);
+    for (int i = values.nextSetBit(0); i >= 0; i = values.nextSetBit(i + 1)) {
+      restaurants.or(restaurantsByValue[i]);
+      if (exactMatches != null && index.isEqualFolded(i, foldedQuery)) {
+        exactMatches.or(restaurantsByValue[i]);
+      }
+    }
+    return restaurants;
+  }
+
+  static class Builder {
+
+    private final Map<String, BitSet> restaurantsByValue = new LinkedHashMap<>();
+
+    Builder add(String value, int ordinal) {
+      if (value != null) {
+        restaurantsByValue.computeIfAbsent(value, k -> new BitSet()).set(ordinal);
+      }
+      return this;
+    }
+
+    ValueIndex build() {
+      return new ValueIndex(restaurantsByValue);
+    }
+  }
+}
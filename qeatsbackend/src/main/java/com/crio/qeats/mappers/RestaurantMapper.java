@@ -0,0 +1,53 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.mappers;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.models.RestaurantEntity;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps restaurant entities to the DTOs returned by the API, field by field.
+ * Replaces ModelMapper on the request path, which builds its type maps by reflection for every
+ * new instance. Gives the same result as ModelMapper for the fields the DTO shares with the
+ * entity: lists are copied, so that a DTO never shares a list with the catalog, and missing
+ * attributes leave the DTO's empty list.
+ */
+public class RestaurantMapper {
+
+  private RestaurantMapper() {
+  }
+
+  public static Restaurant toRestaurant(RestaurantEntity restaurantEntity) {
+    Restaurant restaurant = new Restaurant();
+    restaurant.setId(restaurantEntity.getId());
+    restaurant.setRestaurantId(restaurantEntity.getRestaurantId());
+    restaurant.setName(restaurantEntity.getName());
+    // Derived once per entity rather than once per DTO.
+    restaurant.setDisplayName(restaurantEntity.getDisplayName());
+    restaurant.setCity(restaurantEntity.getCity());
+    restaurant.setImageUrl(restaurantEntity.getImageUrl());
+    restaurant.setLatitude(restaurantEntity.getLatitude());
+    restaurant.setLongitude(restaurantEntity.getLongitude());
+    // The setters derive the minutes of the day used by the open-now checks.
+    restaurant.setOpensAt(restaurantEntity.getOpensAt());
+    restaurant.setClosesAt(restaurantEntity.getClosesAt());
+    if (restaurantEntity.getAttributes() != null) {
+      restaurant.setAttributes(new ArrayList<>(restaurantEntity.getAttributes()));
+    }
+    return restaurant;
+  }
+
+  public static List<Restaurant> toRestaurants(List<RestaurantEntity> restaurantEntityList) {
+    List<Restaurant> restaurantList = new ArrayList<>(restaurantEntityList.size());
+    for (RestaurantEntity restaurantEntity : restaurantEntityList) {
+      restaurantList.add(toRestaurant(restaurantEntity));
+    }
+    return restaurantList;
+  }
+}
@@ -1,6 +1,7 @@
 
 package com.crio.qeats.models;
 
+import com.crio.qeats.utils.TextNormalizer;
 import java.util.ArrayList;
 import java.util.List;
 import javax.validation.constraints.NotNull;
@@ -32,4 +33,19 @@ public class ItemEntity {
   @NotNull
   private List<String> attributes = new ArrayList<>();
 
+  // Copies of name and attributes as matched by searches, see RestaurantEntity.
+  private String normalizedName;
+
+  private List<String> normalizedAttributes = new ArrayList<>();
+
+  public void setName(String name) {
+    this.name = name;
+    this.normalizedName = TextNormalizer.normalize(name);
+  }
+
+  public void setAttributes(List<String> attributes) {
+    this.attributes = attributes;
+    this.normalizedAttributes = TextNormalizer.normalize(attributes);
+  }
+
 }
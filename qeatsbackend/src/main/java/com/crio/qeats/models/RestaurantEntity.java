@@ -6,12 +6,17 @@
 
 package com.crio.qeats.models;
 
+import com.crio.qeats.utils.DisplayNameUtils;
+import com.crio.qeats.utils.OpeningHoursUtils;
+import com.crio.qeats.utils.TextNormalizer;
 import java.util.ArrayList;
 import java.util.List;
 import javax.validation.constraints.NotNull;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 // Java class that maps to Mongo collection.
@@ -50,5 +55,71 @@ public class RestaurantEntity {
   @NotNull
   private List<String> attributes = new ArrayList<>();
 
-}
+  // opensAt/closesAt as minutes of the day, derived once instead of on every open-now check.
+  @Transient
+  private int opensAtMinute = OpeningHoursUtils.UNKNOWN;
+
+  @Transient
+  private int closesAtMinute = OpeningHoursUtils.UNKNOWN;
+
+  // Copies of name and attributes as matched by searches (see TextNormalizer), indexed so that
+  // case and accent insensitive lookups do not scan the collection. Kept in sync by the
+  // setters, and filled in at startup for documents that do not have them yet.
+  private String normalizedName;
+
+  private List<String> normalizedAttributes = new ArrayList<>();
+
+  // Name as shown in API responses, see DisplayNameUtils. Derived once per entity.
+  @Transient
+  private String displayName;
+
+  // GeoJSON copy of latitude/longitude backing the 2dsphere index. Optional; it is filled in
+  // at startup for documents that do not have it yet.
+  private GeoJsonPoint location;
+
+
+  public void setName(String name) {
+    this.name = name;
+    this.normalizedName = TextNormalizer.normalize(name);
+    this.displayName = DisplayNameUtils.toDisplayName(name);
+  }
 
+  public void setAttributes(List<String> attributes) {
+    this.attributes = attributes;
+    this.normalizedAttributes = TextNormalizer.normalize(attributes);
+  }
+
+  public void setOpensAt(String opensAt) {
+    this.opensAt = opensAt;
+    this.opensAtMinute = OpeningHoursUtils.toMinuteOfDay(opensAt);
+  }
+
+  public void setClosesAt(String closesAt) {
+    this.closesAt = closesAt;
+    this.closesAtMinute = OpeningHoursUtils.toMinuteOfDay(closesAt);
+  }
+
+  // Documents read from Mongo bypass the setters, so fall back to deriving these here.
+  public String getDisplayName() {
+    if (displayName == null && name != null) {
+      displayName = DisplayNameUtils.toDisplayName(name);
+    }
+    return displayName;
+  }
+
+
+  public int getOpensAtMinute() {
+    if (opensAtMinute == OpeningHoursUtils.UNKNOWN && opensAt != null) {
+      opensAtMinute = OpeningHoursUtils.toMinuteOfDay(opensAt);
+    }
+    return opensAtMinute;
+  }
+
+  public int getClosesAtMinute() {
+    if (closesAtMinute == OpeningHoursUtils.UNKNOWN && closesAt != null) {
+      closesAtMinute = OpeningHoursUtils.toMinuteOfDay(closesAt);
+    }
+    return closesAtMinute;
+  }
+
+}
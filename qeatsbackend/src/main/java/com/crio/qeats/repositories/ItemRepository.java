@@ -9,12 +9,13 @@ import org.springframework.data.mongodb.repository.Query;
 
 public interface ItemRepository extends MongoRepository<ItemEntity, String> {
 
-  @Query("{name : ?0}, {id: 1}")
-  Optional<List<String>> findItemIdsByName(String searchString);
+  // Normalized query against normalized fields, see RestaurantRepository.
+  @Query("{normalizedName : ?0}, {id: 1}")
+  Optional<List<String>> findItemIdsByName(String normalizedSearchString);
 
 
-  @Query("{attributes : ?0}, {id: 1}")
-  Optional<List<String>> findItemIdsByAttributes(String searchString);
+  @Query("{normalizedAttributes : ?0}, {id: 1}")
+  Optional<List<String>> findItemIdsByAttributes(String normalizedSearchString);
 
 }
 
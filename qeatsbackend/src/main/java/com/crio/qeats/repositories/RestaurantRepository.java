@@ -7,6 +7,7 @@
 package com.crio.qeats.repositories;
 
 import com.crio.qeats.models.RestaurantEntity;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.mongodb.repository.MongoRepository;
@@ -14,17 +15,30 @@ import org.springframework.data.mongodb.repository.Query;
 
 public interface RestaurantRepository extends MongoRepository<RestaurantEntity, String> {
   
-  @Query("{attributes : ?0}")
-  Optional<List<RestaurantEntity>> findRestaurantsByAttributes(String searchString);
+  // Searches compare the indexed normalized copies of the fields with a query normalized by
+  // TextNormalizer, so matching ignores case and accents and still uses an index.
+  @Query("{normalizedAttributes : ?0}")
+  Optional<List<RestaurantEntity>> findRestaurantsByAttributes(String normalizedSearchString);
 
-  @Query("{name : ?0}")
-  Optional<List<RestaurantEntity>> findRestaurantsByNameExact(String searchString);
+  @Query("{normalizedName : ?0}")
+  Optional<List<RestaurantEntity>> findRestaurantsByNameExact(String normalizedSearchString);
 
-  @Query("{name : { $regex : ?0}}")
-  Optional<List<RestaurantEntity>> findRestaurantsByPartialName(String searchString);
+  // Takes an anchored regex from TextNormalizer.toPrefixRegex, answered with a range scan.
+  @Query("{normalizedName : { $regex : ?0}}")
+  Optional<List<RestaurantEntity>> findRestaurantsByPartialName(String prefixRegex);
 
   @Query("{id : ?0}")
   Optional<RestaurantEntity> findRestaurantById(String restaurantId);
 
+  // Loads the restaurants of many menus in one round-trip; same key as findRestaurantById.
+  @Query("{id : {$in : ?0}}")
+  List<RestaurantEntity> findRestaurantsByIdIn(Collection<String> restaurantIds);
+
+  // Answered from the 2dsphere index on location; the radius is in radians
+  // (kilometres divided by the earth radius).
+  @Query("{location : {$geoWithin : {$centerSphere : [[?1, ?0], ?2]}}}")
+  List<RestaurantEntity> findRestaurantsWithinRadius(Double latitude, Double longitude,
+      Double radiusInRadians);
+
 }
 
@@ -10,6 +10,7 @@ import com.crio.qeats.dto.Restaurant;
 import java.time.LocalTime;
 import java.util.List;
 import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import org.springframework.scheduling.annotation.Async;
 
 public interface RestaurantRepositoryService {
@@ -28,6 +29,16 @@ public interface RestaurantRepositoryService {
   List<Restaurant> findAllRestaurantsCloseBy(Double latitude, Double longitude,
       LocalTime currentTime, Double servingRadiusInKms);
 
+  /**
+   * Same restaurants as findAllRestaurantsCloseBy, handed to the action one at a time as they
+   * are found instead of collected into a list first.
+   */
+  default void forEachRestaurantCloseBy(Double latitude, Double longitude,
+      LocalTime currentTime, Double servingRadiusInKms, Consumer<Restaurant> action) {
+    findAllRestaurantsCloseBy(latitude, longitude, currentTime, servingRadiusInKms)
+        .forEach(action);
+  }
+
 
   /**
    * Get the list of open restaurants within the specified serving radius.
@@ -7,58 +7,69 @@
 package com.crio.qeats.repositoryservices;
 
 import ch.hsr.geohash.GeoHash;
-import com.crio.qeats.configs.RedisConfiguration;
+import ch.hsr.geohash.WGS84Point;
+import com.crio.qeats.cache.CellKey;
+import com.crio.qeats.cache.LocalRestaurantCache;
+import com.crio.qeats.cache.RedisRestaurantCache;
+import com.crio.qeats.cache.SingleFlight;
 import com.crio.qeats.dto.Restaurant;
-import com.crio.qeats.globals.GlobalConstants;
-import com.crio.qeats.models.ItemEntity;
+import com.crio.qeats.indexes.CatalogSnapshot;
+import com.crio.qeats.indexes.OpenHoursIndex;
+import com.crio.qeats.indexes.RestaurantCatalog;
+import com.crio.qeats.mappers.RestaurantMapper;
 import com.crio.qeats.models.MenuEntity;
 import com.crio.qeats.models.RestaurantEntity;
 import com.crio.qeats.repositories.ItemRepository;
 import com.crio.qeats.repositories.MenuRepository;
 import com.crio.qeats.repositories.RestaurantRepository;
-import com.crio.qeats.utils.GeoLocation;
 import com.crio.qeats.utils.GeoUtils;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.type.CollectionType;
-
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.Serializable;
+import com.crio.qeats.utils.OpeningHoursUtils;
+import com.crio.qeats.utils.TextNormalizer;
+
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Base64;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.Future;
-import java.util.regex.Pattern;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
-import javax.inject.Provider;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.data.mongodb.core.query.Criteria;
-import org.springframework.data.mongodb.core.query.Query;
-import org.springframework.scheduling.annotation.AsyncResult;
 import org.springframework.stereotype.Service;
-import redis.clients.jedis.Jedis;
 
 
 @Service("restaurantRepositoryServiceImpl")
 public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryService {
 
+  // Nearby lookups are answered from the in-memory grid by default; "mongo" pushes the radius
+  // filter down to the 2dsphere index instead.
+  static final String NEARBY_BACKEND_MONGO = "mongo";
+
+  private static final double EARTH_RADIUS_IN_KMS = 6371.0;
+
+  @Value("${qeats.nearby.backend:grid}")
+  private String nearbyBackend;
+
+  // Restaurant and item name searches are answered from the catalog's trigram indexes by
+  // default, whole queries by RestaurantSearchEngine; "mongo" sends them to the repository
+  // queries instead.
+  static final String SEARCH_BACKEND_MONGO = "mongo";
+
+  @Value("${qeats.search.backend:index}")
+  private String searchBackend;
+
+  @Value("${qeats.cache.load-wait-ms:2000}")
+  private long loadWaitInMs;
+
   @Autowired
   private RestaurantRepository restaurantRepository;
 
@@ -69,24 +80,35 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
   private MenuRepository menuRepository;
 
   @Autowired
-  private RedisConfiguration redisConfiguration;
+  private RedisRestaurantCache redisRestaurantCache;
 
   @Autowired
   private MongoTemplate mongoTemplate;
 
   @Autowired
-  private Provider<ModelMapper> modelMapperProvider;
+  private RestaurantCatalog restaurantCatalog;
+
+  @Autowired
+  private LocalRestaurantCache localRestaurantCache;
+
+  // Concurrent misses on the same key wait for a single load instead of each going to the
+  // backend, e.g. when a popular cell expires at peak time.
+  private final SingleFlight<CellKey, List<Restaurant>> nearbyLoads = new SingleFlight<>();
 
   
   private boolean isOpenNow(LocalTime time, RestaurantEntity re) {
-    LocalTime openingTime = LocalTime.parse(re.getOpensAt());
-    LocalTime closingTime = LocalTime.parse(re.getClosesAt());
-
-    return time.isAfter(openingTime) && time.isBefore(closingTime);
+    return OpeningHoursUtils.isOpen(re.getOpensAtMinute(), re.getClosesAtMinute(), time);
   }
 
-  String getGeoKey(Double latitude, Double longitude) {
-    return GeoHash.withCharacterPrecision(latitude, longitude, 7).toBase32();
+  // The cached unit is a geohash cell of this precision (about 1.2 km x 0.6 km) and a fifteen
+  // minute slot of the day, holding every restaurant open during the slot that can be within
+  // the serving radius of some point in the cell. Requests then filter the candidates by their
+  // exact distance and opening hours, so all users in a cell share one entry and still get
+  // exact results.
+  static final int CACHE_GEOHASH_PRECISION = 6;
+
+  CellKey getGeoKey(GeoHash cell, Double servingRadiusInKms, int slot) {
+    return new CellKey(cell, servingRadiusInKms, slot);
   }
 
   private boolean isRestaurantCloseByAndOpen(RestaurantEntity restaurantEntity,
@@ -98,83 +120,150 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
           < servingRadiusInKms;
   }
 
-  public List<Restaurant> findAllRestaurantsCloseBy(Double latitude, Double longitude, 
-      LocalTime currentTime, Double servingRadiusInKms) {
-    List<Restaurant> restaurants = null;
-    String key = getGeoKey(latitude, longitude);
-    if (redisConfiguration != null && redisConfiguration.isCacheAvailable()) {
-      Jedis jedis = redisConfiguration.getJedisPool().getResource();
-      String encodedRests =  jedis.get(key);
-      jedis.close();
-      if (encodedRests != null) {
-        restaurants = findAllRestaurantsCloseByFromCache(encodedRests, currentTime);
-        return restaurants;
-      }
-    }
-    if (redisConfiguration == null || !redisConfiguration.isCacheAvailable()) {
-      redisConfiguration.initCache();
+  /**
+   * Keeps the restaurants within the serving radius and open at currentTime, in their original
+   * order. Restaurants the catalog holds with the same location and opening hours are first
+   * looked up in the catalog's candidates for the request's cell and slot, which the search
+   * legs and every request from the cell share, so that only those close to it are checked
+   * exactly; the others (new, or changed since the snapshot) are all checked exactly.
+   */
+  private List<Restaurant> filterCloseByAndOpen(List<RestaurantEntity> restaurantEntityList,
+      Double latitude, Double longitude, LocalTime currentTime, Double servingRadiusInKms) {
+    List<Restaurant> restaurantList = new ArrayList<>();
+    if (restaurantEntityList.isEmpty()) {
+      return restaurantList;
     }
-    restaurants = findAllRestaurantsCloseFromDb(latitude, longitude,
-    currentTime, servingRadiusInKms);
+    CatalogSnapshot catalog = restaurantCatalog == null ? null : restaurantCatalog.getSnapshot();
+    BitSet candidates = catalog == null ? null : catalog.findRestaurantsServingCell(
+        GeoHash.withCharacterPrecision(latitude, longitude, CACHE_GEOHASH_PRECISION),
+        servingRadiusInKms, OpenHoursIndex.slotOf(currentTime));
 
-    
-    return restaurants;
+    for (RestaurantEntity restaurantEntity : restaurantEntityList) {
+      int ordinal = catalog == null ? -1 : catalog.ordinalOf(restaurantEntity.getRestaurantId());
+      boolean candidate = ordinal < 0
+          || !isIndexedAsIs(restaurantEntity, catalog.getRestaurant(ordinal))
+          || candidates.get(ordinal);
+      if (candidate && isRestaurantCloseByAndOpen(restaurantEntity, currentTime,
+          latitude, longitude, servingRadiusInKms)) {
+        restaurantList.add(RestaurantMapper.toRestaurant(restaurantEntity));
+      }
+    }
+    return restaurantList;
   }
 
+  private static boolean isIndexedAsIs(RestaurantEntity restaurantEntity,
+      RestaurantEntity indexedEntity) {
+    return restaurantEntity == indexedEntity
+        || Objects.equals(restaurantEntity.getLatitude(), indexedEntity.getLatitude())
+        && Objects.equals(restaurantEntity.getLongitude(), indexedEntity.getLongitude())
+        && restaurantEntity.getOpensAtMinute() == indexedEntity.getOpensAtMinute()
+        && restaurantEntity.getClosesAtMinute() == indexedEntity.getClosesAtMinute();
+  }
 
-  private List<Restaurant> findAllRestaurantsCloseFromDb(Double latitude,
-      Double longitude,
+  public List<Restaurant> findAllRestaurantsCloseBy(Double latitude, Double longitude, 
       LocalTime currentTime, Double servingRadiusInKms) {
+    List<Restaurant> restaurants = new ArrayList<>();
+    forEachRestaurantCloseBy(latitude, longitude, currentTime, servingRadiusInKms,
+        restaurants::add);
+    return restaurants;
+  }
 
-    List<RestaurantEntity> restaurantEntityList = restaurantRepository.findAll();
-    ModelMapper modelMapper = modelMapperProvider.get();
-    ObjectMapper objectMapper = new ObjectMapper();
-    List<Restaurant> restaurantList = new ArrayList<>();
-    for (RestaurantEntity restaurantEntity : restaurantEntityList) {
-      if (isRestaurantCloseByAndOpen(restaurantEntity, currentTime,
-          latitude, longitude, servingRadiusInKms)) {
-        if (isOpenNow(currentTime, restaurantEntity)) {
-          if (GeoUtils.findDistanceInKm(latitude, longitude,
-              restaurantEntity.getLatitude(), restaurantEntity.getLongitude())
-              < servingRadiusInKms) {
-            restaurantList.add(modelMapper.map(restaurantEntity, Restaurant.class));
-          }
-        }
+  @Override
+  public void forEachRestaurantCloseBy(Double latitude, Double longitude,
+      LocalTime currentTime, Double servingRadiusInKms, Consumer<Restaurant> action) {
+    GeoHash cell = GeoHash.withCharacterPrecision(latitude, longitude,
+        CACHE_GEOHASH_PRECISION);
+    int slot = OpenHoursIndex.slotOf(currentTime);
+    CellKey key = getGeoKey(cell, servingRadiusInKms, slot);
+    List<Restaurant> candidates = localRestaurantCache == null
+        ? null : localRestaurantCache.get(key);
+    if (candidates == null) {
+      candidates = nearbyLoads.load(key, loadWaitInMs,
+          () -> loadCandidates(key, cell, servingRadiusInKms, slot));
+    }
+
+    for (Restaurant restaurant : candidates) {
+      if (GeoUtils.findDistanceInKm(latitude, longitude,
+          restaurant.getLatitude(), restaurant.getLongitude()) < servingRadiusInKms
+          && restaurant.isOpenAt(currentTime)) {
+        action.accept(restaurant);
       }
     }
-    try {
-      String json = objectMapper.writeValueAsString(restaurantList);
-      Jedis jedis = redisConfiguration.getJedisPool().getResource();
-      jedis.set(getGeoKey(latitude, longitude), json);
-    //  jedis.close();
-    } catch (Exception e) {
-      System.out.println("JSON Parse Exception IN SERIALISATION");
+  }
+
+
+  /**
+   * Loads the candidates of a cell and slot from Redis, or from the backend on a miss, and
+   * keeps them in the local cache. Runs once per key at a time.
+   */
+  private List<Restaurant> loadCandidates(CellKey key, GeoHash cell, Double servingRadiusInKms,
+      int slot) {
+    // Another caller may have completed the load between our miss and taking the flight.
+    List<Restaurant> candidates = localRestaurantCache == null
+        ? null : localRestaurantCache.get(key);
+    if (candidates != null) {
+      return candidates;
+    }
+    candidates = redisRestaurantCache == null ? null : redisRestaurantCache.get(key.toRedisKey());
+    if (candidates == null) {
+      candidates = findAllRestaurantsCloseFromDb(cell, servingRadiusInKms, slot);
     }
-    return restaurantList;
+    if (localRestaurantCache != null) {
+      candidates = localRestaurantCache.put(key, candidates);
+    }
+    return candidates;
   }
-  
-  private List<Restaurant> findAllRestaurantsCloseByFromCache(String encodedRests, 
-        LocalTime currentTime) {
-    ObjectMapper objectMapper = new ObjectMapper();
-    List<Restaurant> restaurants = null;
-    try {
-      System.out.println("HIT IN CACHE");
-      CollectionType javaType = objectMapper.getTypeFactory()
-              .constructCollectionType(List.class, Restaurant.class);
-      restaurants = objectMapper.readValue(encodedRests, javaType);
-      Iterator<Restaurant> itr = restaurants.iterator();
-      while (itr.hasNext()) {
-        Restaurant x = (Restaurant) itr.next();
-        if (!(currentTime.isAfter(LocalTime.parse(x.getOpensAt())) 
-            && currentTime.isBefore(LocalTime.parse(x.getClosesAt())))) {
-          itr.remove();
+
+  /**
+   * Restaurants within the serving radius that are open at some point of the given slot.
+   */
+  private List<RestaurantEntity> findRestaurantEntitiesCloseBy(Double latitude,
+      Double longitude, Double servingRadiusInKms, int slot) {
+    List<RestaurantEntity> restaurantEntityList = new ArrayList<>();
+    if (NEARBY_BACKEND_MONGO.equals(nearbyBackend)) {
+      // $geoWithin includes the boundary, the serving radius does not.
+      for (RestaurantEntity restaurantEntity : restaurantRepository.findRestaurantsWithinRadius(
+          latitude, longitude, servingRadiusInKms / EARTH_RADIUS_IN_KMS)) {
+        if (GeoUtils.findDistanceInKm(latitude, longitude,
+            restaurantEntity.getLatitude(), restaurantEntity.getLongitude())
+            < servingRadiusInKms
+            && OpenHoursIndex.isOpenDuringSlot(restaurantEntity.getOpensAtMinute(),
+                restaurantEntity.getClosesAtMinute(), slot)) {
+          restaurantEntityList.add(restaurantEntity);
         }
       }
-      return restaurants;
-    } catch (Exception e) {
-      System.out.println("JSON Parse Exception IN DESERIALISATION");
+      return restaurantEntityList;
     }
-    return null;
+
+    CatalogSnapshot catalog = restaurantCatalog.getSnapshot();
+    BitSet closeBy = catalog.findRestaurantsCloseBy(latitude, longitude, servingRadiusInKms);
+    catalog.getOpenHoursIndex().retainOpenDuringSlot(closeBy, slot);
+    for (int i = closeBy.nextSetBit(0); i >= 0; i = closeBy.nextSetBit(i + 1)) {
+      restaurantEntityList.add(catalog.getRestaurant(i));
+    }
+    return restaurantEntityList;
+  }
+
+  /**
+   * Computes and caches the candidates of a cell and slot: every restaurant open during the
+   * slot within the serving radius of the cell's farthest corner as seen from its center.
+   */
+  private List<Restaurant> findAllRestaurantsCloseFromDb(GeoHash cell,
+      Double servingRadiusInKms, int slot) {
+    WGS84Point center = cell.getBoundingBoxCenterPoint();
+    double halfDiagonalInKms = GeoUtils.findHalfDiagonalInKm(cell);
+
+    List<Restaurant> restaurantList = new ArrayList<>();
+    for (RestaurantEntity restaurantEntity : findRestaurantEntitiesCloseBy(
+        center.getLatitude(), center.getLongitude(), servingRadiusInKms + halfDiagonalInKms,
+        slot)) {
+      restaurantList.add(RestaurantMapper.toRestaurant(restaurantEntity));
+    }
+    if (redisRestaurantCache != null) {
+      redisRestaurantCache.put(getGeoKey(cell, servingRadiusInKms, slot).toRedisKey(),
+          restaurantList);
+    }
+    return restaurantList;
   }
 
   // TODO: CRIO_TASK_MODULE_RESTAURANTSEARCH
@@ -183,12 +272,15 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
   @Override
   public List<Restaurant> findRestaurantsByName(Double latitude, Double longitude,
       String searchString, LocalTime currentTime, Double servingRadiusInKms) {
-    ModelMapper modelMapper = modelMapperProvider.get();
+    if (isSearchIndexed()) {
+      return filterCloseByAndOpen(
+          restaurantCatalog.getSnapshot().findRestaurantsByName(searchString),
+          latitude, longitude, currentTime, servingRadiusInKms);
+    }
     Optional<List<RestaurantEntity>> exactOptrestaurantEntityList = restaurantRepository
-        .findRestaurantsByNameExact(searchString);
+        .findRestaurantsByNameExact(TextNormalizer.normalize(searchString));
     Optional<List<RestaurantEntity>> partialOptrestaurantEntityList = restaurantRepository
-        .findRestaurantsByPartialName(searchString);
-    List<Restaurant> restaurantList = new ArrayList<>();
+        .findRestaurantsByPartialName(TextNormalizer.toPrefixRegex(searchString));
     List<RestaurantEntity> restaurantEntityList = new ArrayList<RestaurantEntity>();
     if (exactOptrestaurantEntityList.isPresent()) {
       restaurantEntityList.addAll(exactOptrestaurantEntityList.get());
@@ -196,13 +288,8 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
     if (partialOptrestaurantEntityList.isPresent()) {
       restaurantEntityList.addAll(partialOptrestaurantEntityList.get());
     }
-    for (RestaurantEntity restaurantEntity : restaurantEntityList) {
-      if (isRestaurantCloseByAndOpen(restaurantEntity, currentTime,
-          latitude, longitude, servingRadiusInKms)) {
-        restaurantList.add(modelMapper.map(restaurantEntity, Restaurant.class));
-      }
-    }
-    return restaurantList;
+    return filterCloseByAndOpen(restaurantEntityList, latitude, longitude, currentTime,
+        servingRadiusInKms);
   }
 
 
@@ -214,21 +301,14 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
       Double latitude, Double longitude,
       String searchString, LocalTime currentTime, Double servingRadiusInKms) {
 
-    ModelMapper modelMapper = modelMapperProvider.get();
-    List<Restaurant> restaurantList = new ArrayList<>();
     Optional<List<RestaurantEntity>> optRestaurantEntityList = restaurantRepository
-        .findRestaurantsByAttributes(searchString);
+        .findRestaurantsByAttributes(TextNormalizer.normalize(searchString));
 
     if (optRestaurantEntityList.isPresent()) {
-      List<RestaurantEntity> restaurantEntityList = optRestaurantEntityList.get();
-      for (RestaurantEntity restaurantEntity : restaurantEntityList) {
-        if (isRestaurantCloseByAndOpen(restaurantEntity, currentTime,
-              latitude, longitude, servingRadiusInKms)) {
-          restaurantList.add(modelMapper.map(restaurantEntity, Restaurant.class));
-        }
-      }
+      return filterCloseByAndOpen(optRestaurantEntityList.get(), latitude, longitude,
+          currentTime, servingRadiusInKms);
     }
-    return restaurantList;  
+    return new ArrayList<>();
   }
 
 
@@ -242,23 +322,12 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
   public List<Restaurant> findRestaurantsByItemName(
       Double latitude, Double longitude,
       String searchString, LocalTime currentTime, Double servingRadiusInKms) {
-    ModelMapper modelMapper = modelMapperProvider.get();
-    List<Restaurant> restaurants = new ArrayList<Restaurant>();
-    Optional<List<String>> itemsIds = itemRepository.findItemIdsByName(searchString);
-    if (itemsIds.isPresent()) {
-      Optional<List<MenuEntity>> menus = menuRepository.findMenusByItemsItemIdIn(itemsIds.get());
-      if (menus.isPresent()) {
-        menus.get().forEach(e -> {
-          Optional<RestaurantEntity> re = restaurantRepository
-              .findRestaurantById(e.getRestaurantId());
-          if (re.isPresent() && isRestaurantCloseByAndOpen(re.get(), currentTime,
-              latitude, longitude, servingRadiusInKms)) {
-            restaurants.add(modelMapper.map(re.get(), Restaurant.class));
-          }
-        });
-      }
-    }
-    return restaurants;
+    List<RestaurantEntity> restaurantEntityList = isSearchIndexed()
+        ? restaurantCatalog.getSnapshot().findRestaurantsByItemName(searchString)
+        : findRestaurantsServingItems(
+            itemRepository.findItemIdsByName(TextNormalizer.normalize(searchString)));
+    return filterCloseByAndOpen(restaurantEntityList, latitude, longitude, currentTime,
+        servingRadiusInKms);
   }
 
   // TODO: CRIO_TASK_MODULE_RESTAURANTSEARCH
@@ -267,23 +336,50 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
   @Override
   public List<Restaurant> findRestaurantsByItemAttributes(Double latitude, Double longitude,
       String searchString, LocalTime currentTime, Double servingRadiusInKms) {
-    ModelMapper modelMapper = modelMapperProvider.get();
-    List<Restaurant> restaurants = new ArrayList<Restaurant>();
-    Optional<List<String>> itemsIds = itemRepository.findItemIdsByAttributes(searchString);
-    if (itemsIds.isPresent()) {
-      Optional<List<MenuEntity>> menus = menuRepository.findMenusByItemsItemIdIn(itemsIds.get());
-      if (menus.isPresent()) {
-        menus.get().forEach(e -> {
-          Optional<RestaurantEntity> re = restaurantRepository
-              .findRestaurantById(e.getRestaurantId());  
-          if (re.isPresent() && isRestaurantCloseByAndOpen(re.get(), currentTime,
-               latitude, longitude, servingRadiusInKms)) {
-            restaurants.add(modelMapper.map(re.get(), Restaurant.class));
-          }
-        });
+    List<RestaurantEntity> restaurantEntityList =
+        findRestaurantsServingItems(
+            itemRepository.findItemIdsByAttributes(TextNormalizer.normalize(searchString)));
+    return filterCloseByAndOpen(restaurantEntityList, latitude, longitude, currentTime,
+        servingRadiusInKms);
+  }
+
+  private boolean isSearchIndexed() {
+    return !SEARCH_BACKEND_MONGO.equals(searchBackend) && restaurantCatalog != null;
+  }
+
+  /**
+   * Finds the restaurants whose menus list any of the items, in menu order and without
+   * duplicates, fetching them all with a single $in query.
+   */
+  private List<RestaurantEntity> findRestaurantsServingItems(Optional<List<String>> itemsIds) {
+    if (!itemsIds.isPresent() || itemsIds.get().isEmpty()) {
+      return new ArrayList<>();
+    }
+    Optional<List<MenuEntity>> menus = menuRepository.findMenusByItemsItemIdIn(itemsIds.get());
+    if (!menus.isPresent() || menus.get().isEmpty()) {
+      return new ArrayList<>();
+    }
+    Set<String> restaurantIds = new LinkedHashSet<>();
+    for (MenuEntity menu : menus.get()) {
+      if (menu.getRestaurantId() != null) {
+        restaurantIds.add(menu.getRestaurantId());
+      }
+    }
+
+    // $in returns documents in collection order, put them back in menu order.
+    Map<String, RestaurantEntity> restaurantsById = new HashMap<>();
+    for (RestaurantEntity restaurantEntity
+        : restaurantRepository.findRestaurantsByIdIn(restaurantIds)) {
+      restaurantsById.putIfAbsent(restaurantEntity.getId(), restaurantEntity);
+    }
+    List<RestaurantEntity> restaurantEntityList = new ArrayList<>(restaurantsById.size());
+    for (String restaurantId : restaurantIds) {
+      RestaurantEntity restaurantEntity = restaurantsById.get(restaurantId);
+      if (restaurantEntity != null) {
+        restaurantEntityList.add(restaurantEntity);
       }
     }
-    return restaurants;  
+    return restaurantEntityList;
   }
 
 }
@@ -0,0 +1,282 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import com.crio.qeats.cache.RedisCacheClient;
+import com.crio.qeats.cache.RestaurantListCodec;
+import com.crio.qeats.cache.SingleFlight;
+import com.crio.qeats.configs.MongoIndexConfiguration;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.indexes.CatalogSnapshot;
+import com.crio.qeats.indexes.RestaurantCatalog;
+import com.crio.qeats.mappers.RestaurantMapper;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.utils.GeoUtils;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.GeoCoordinate;
+import redis.clients.jedis.GeoRadiusResponse;
+import redis.clients.jedis.GeoUnit;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.params.geo.GeoRadiusParam;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * Answers nearby lookups from Redis, shared by all application nodes: restaurant coordinates
+ * live in a GEO set queried with GEORADIUS, and restaurant bodies in a hash fetched with HMGET.
+ * Both are filled from the catalog on first use and kept up to date on restaurant writes.
+ * Restaurants are returned nearest first.
+ * Searches, and nearby lookups while Redis is unavailable or does not support GEO commands
+ * (before 3.2), are delegated to {@link RestaurantRepositoryServiceImpl}.
+ * Enabled with qeats.nearby.engine=redis-geo.
+ */
+@Log4j2
+@Primary
+@Service("restaurantRepositoryServiceRedisGeoImpl")
+@ConditionalOnProperty(name = "qeats.nearby.engine", havingValue = "redis-geo")
+public class RestaurantRepositoryServiceRedisGeoImpl implements RestaurantRepositoryService {
+
+  static final byte[] GEO_KEY = SafeEncoder.encode("restaurants:geo");
+  static final byte[] BODIES_KEY = SafeEncoder.encode("restaurants:bodies");
+
+  // Redis and GeoUtils use slightly different earth radii; query a little wider and keep the
+  // exact serving radius check on our side.
+  private static final double RADIUS_MARGIN = 1.001;
+
+  // Valid latitudes of the GEO commands.
+  private static final double MAX_GEO_LATITUDE = 85.05112878;
+
+  @Autowired
+  @Qualifier("restaurantRepositoryServiceImpl")
+  private RestaurantRepositoryService restaurantRepositoryServiceImpl;
+
+  @Autowired
+  private RestaurantCatalog restaurantCatalog;
+
+  @Autowired
+  private RedisCacheClient redisCacheClient;
+
+  @Autowired
+  private RestaurantListCodec restaurantListCodec;
+
+  @Value("${qeats.cache.load-wait-ms:2000}")
+  private long loadWaitInMs;
+
+  private final SingleFlight<String, Integer> loads = new SingleFlight<>();
+
+  @Override
+  public List<Restaurant> findAllRestaurantsCloseBy(Double latitude, Double longitude,
+      LocalTime currentTime, Double servingRadiusInKms) {
+    List<Restaurant> candidates;
+    try {
+      candidates = findCandidates(latitude, longitude, servingRadiusInKms);
+    } catch (JedisException e) {
+      log.warn("Redis GEO lookup failed, falling back", e);
+      return restaurantRepositoryServiceImpl.findAllRestaurantsCloseBy(latitude, longitude,
+          currentTime, servingRadiusInKms);
+    }
+
+    List<Restaurant> restaurants = new ArrayList<>();
+    for (Restaurant restaurant : candidates) {
+      if (GeoUtils.findDistanceInKm(latitude, longitude,
+          restaurant.getLatitude(), restaurant.getLongitude()) < servingRadiusInKms
+          && restaurant.isOpenAt(currentTime)) {
+        restaurants.add(restaurant);
+      }
+    }
+    return restaurants;
+  }
+
+  private List<Restaurant> findCandidates(double latitude, double longitude,
+      double servingRadiusInKms) {
+    List<byte[]> bodies = redisCacheClient.execute(
+        jedis -> findBodies(jedis, latitude, longitude, servingRadiusInKms));
+    if (bodies == null) {
+      loads.load("load", loadWaitInMs, this::load);
+      bodies = redisCacheClient.execute(
+          jedis -> findBodies(jedis, latitude, longitude, servingRadiusInKms));
+    }
+    if (bodies == null) {
+      return Collections.emptyList();
+    }
+
+    List<Restaurant> candidates = new ArrayList<>(bodies.size());
+    for (byte[] body : bodies) {
+      List<Restaurant> decoded = body == null ? null : restaurantListCodec.decode(body);
+      if (decoded != null && decoded.size() == 1) {
+        candidates.add(decoded.get(0));
+      }
+    }
+    return candidates;
+  }
+
+  /**
+   * Bodies of the restaurants within the radius, nearest first, or null if the GEO set is not
+   * loaded.
+   */
+  private static List<byte[]> findBodies(Jedis jedis, double latitude, double longitude,
+      double servingRadiusInKms) {
+    List<GeoRadiusResponse> members = jedis.georadius(GEO_KEY, longitude, latitude,
+        servingRadiusInKms * RADIUS_MARGIN, GeoUnit.KM,
+        GeoRadiusParam.geoRadiusParam().sortAscending());
+    if (members.isEmpty()) {
+      return jedis.exists(GEO_KEY) ? Collections.<byte[]>emptyList() : null;
+    }
+    byte[][] restaurantIds = new byte[members.size()][];
+    for (int i = 0; i < restaurantIds.length; i++) {
+      restaurantIds[i] = members.get(i).getMember();
+    }
+    return jedis.hmget(BODIES_KEY, restaurantIds);
+  }
+
+  /**
+   * Copies the catalog into Redis, bodies first so that a member of the GEO set always has
+   * its body. The catalog, which may have to be loaded from Mongo, is encoded before taking
+   * the connection that writes it, so the load does not hold a pooled connection.
+   */
+  private int load() {
+    if (redisCacheClient.execute(jedis -> jedis.exists(GEO_KEY))) {
+      return 0;
+    }
+    CatalogSnapshot catalog = restaurantCatalog.getSnapshot();
+    Map<byte[], byte[]> bodies = new HashMap<>();
+    Map<byte[], GeoCoordinate> coordinates = new HashMap<>();
+    for (int ordinal = 0; ordinal < catalog.size(); ordinal++) {
+      RestaurantEntity restaurantEntity = catalog.getRestaurant(ordinal);
+      if (!hasGeoCoordinates(restaurantEntity)) {
+        continue;
+      }
+      byte[] restaurantId = SafeEncoder.encode(restaurantEntity.getRestaurantId());
+      bodies.put(restaurantId, encode(restaurantEntity));
+      coordinates.put(restaurantId, new GeoCoordinate(restaurantEntity.getLongitude(),
+          restaurantEntity.getLatitude()));
+    }
+
+    int loaded = redisCacheClient.execute(jedis -> {
+      if (jedis.exists(GEO_KEY)) {
+        // Loaded by another node meanwhile.
+        return 0;
+      }
+      Pipeline pipeline = jedis.pipelined();
+      for (Map.Entry<byte[], byte[]> body : bodies.entrySet()) {
+        pipeline.hset(BODIES_KEY, body.getKey(), body.getValue());
+      }
+      pipeline.sync();
+      if (!coordinates.isEmpty()) {
+        jedis.geoadd(GEO_KEY, coordinates);
+      }
+      return coordinates.size();
+    });
+    log.info("Loaded {} restaurants into the Redis GEO set", loaded);
+    return loaded;
+  }
+
+  /**
+   * Keeps the GEO set and bodies in line with restaurant writes.
+   */
+  @EventListener
+  public void onRestaurantSaved(AfterSaveEvent<?> event) {
+    if (!(event.getSource() instanceof RestaurantEntity)) {
+      return;
+    }
+    RestaurantEntity restaurantEntity = (RestaurantEntity) event.getSource();
+    if (restaurantEntity.getRestaurantId() == null) {
+      return;
+    }
+    byte[] restaurantId = SafeEncoder.encode(restaurantEntity.getRestaurantId());
+    try {
+      redisCacheClient.execute(jedis -> {
+        if (!jedis.exists(GEO_KEY)) {
+          // Not loaded yet, the next lookup loads the current catalog.
+          return null;
+        }
+        if (hasGeoCoordinates(restaurantEntity)) {
+          jedis.hset(BODIES_KEY, restaurantId, encode(restaurantEntity));
+          jedis.geoadd(GEO_KEY, restaurantEntity.getLongitude(),
+              restaurantEntity.getLatitude(), restaurantId);
+        } else {
+          jedis.zrem(GEO_KEY, restaurantId);
+          jedis.hdel(BODIES_KEY, restaurantId);
+        }
+        return null;
+      });
+    } catch (JedisException e) {
+      log.warn("Could not update restaurant {} in Redis", restaurantEntity.getRestaurantId(), e);
+    }
+  }
+
+  /**
+   * Deletes only identify the document, so the GEO set is dropped and reloaded on next use.
+   */
+  @EventListener
+  public void onRestaurantDeleted(AfterDeleteEvent<?> event) {
+    if (!MongoIndexConfiguration.RESTAURANTS_COLLECTION.equals(event.getCollectionName())) {
+      return;
+    }
+    try {
+      redisCacheClient.execute(jedis -> jedis.del(GEO_KEY, BODIES_KEY));
+    } catch (JedisException e) {
+      log.warn("Could not drop the Redis GEO set", e);
+    }
+  }
+
+  private byte[] encode(RestaurantEntity restaurantEntity) {
+    return restaurantListCodec.encode(
+        Collections.singletonList(RestaurantMapper.toRestaurant(restaurantEntity)));
+  }
+
+  private static boolean hasGeoCoordinates(RestaurantEntity restaurantEntity) {
+    return restaurantEntity.getRestaurantId() != null
+        && restaurantEntity.getLatitude() != null && restaurantEntity.getLongitude() != null
+        && Math.abs(restaurantEntity.getLatitude()) <= MAX_GEO_LATITUDE
+        && Math.abs(restaurantEntity.getLongitude()) <= 180;
+  }
+
+  @Override
+  public List<Restaurant> findRestaurantsByName(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    return restaurantRepositoryServiceImpl.findRestaurantsByName(latitude, longitude,
+        searchString, currentTime, servingRadiusInKms);
+  }
+
+  @Override
+  public List<Restaurant> findRestaurantsByAttributes(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    return restaurantRepositoryServiceImpl.findRestaurantsByAttributes(latitude, longitude,
+        searchString, currentTime, servingRadiusInKms);
+  }
+
+  @Override
+  public List<Restaurant> findRestaurantsByItemName(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    return restaurantRepositoryServiceImpl.findRestaurantsByItemName(latitude, longitude,
+        searchString, currentTime, servingRadiusInKms);
+  }
+
+  @Override
+  public List<Restaurant> findRestaurantsByItemAttributes(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    return restaurantRepositoryServiceImpl.findRestaurantsByItemAttributes(latitude, longitude,
+        searchString, currentTime, servingRadiusInKms);
+  }
+}
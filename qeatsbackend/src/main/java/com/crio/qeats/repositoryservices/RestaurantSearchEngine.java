@@ -0,0 +1,120 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import ch.hsr.geohash.GeoHash;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.indexes.CatalogSnapshot;
+import com.crio.qeats.indexes.RestaurantCatalog;
+import com.crio.qeats.mappers.RestaurantMapper;
+import com.crio.qeats.models.RestaurantEntity;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Answers a whole search query from the indexes of the in-memory catalog: restaurant names,
+ * cuisines, and the item names and item attributes of their menus, restricted to the
+ * restaurants close by and open, in one pass instead of four repository calls.
+ * Disabled with qeats.search.backend=mongo, except for autocomplete which has no other
+ * backend.
+ */
+@Service
+public class RestaurantSearchEngine {
+
+  @Value("${qeats.search.backend:index}")
+  private String searchBackend;
+
+  @Autowired
+  private RestaurantCatalog restaurantCatalog;
+
+  public boolean isEnabled() {
+    return !RestaurantRepositoryServiceImpl.SEARCH_BACKEND_MONGO.equals(searchBackend);
+  }
+
+  /**
+   * Restaurants matching the search query within the serving radius and open at currentTime,
+   * ranked and de-duplicated as documented by RestaurantService.
+   */
+  public List<Restaurant> findRestaurantsBySearchQuery(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    CatalogSnapshot catalog = restaurantCatalog.getSnapshot();
+    BitSet closeByAndOpen = catalog.findOpenRestaurantsCloseBy(latitude, longitude,
+        servingRadiusInKms, currentTime);
+    return RestaurantMapper.toRestaurants(catalog.search(searchString, closeByAndOpen));
+  }
+
+  /**
+   * Typo-tolerant variant of {@link #findRestaurantsBySearchQuery}, for queries it finds
+   * nothing for; every word of the query may be a few edits away from the restaurant's.
+   * Answered from the catalog whatever the search backend.
+   */
+  public List<Restaurant> findRestaurantsBySimilarQuery(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    CatalogSnapshot catalog = restaurantCatalog.getSnapshot();
+    BitSet closeByAndOpen = catalog.findOpenRestaurantsCloseBy(latitude, longitude,
+        servingRadiusInKms, currentTime);
+    return RestaurantMapper.toRestaurants(catalog.searchSimilar(searchString, closeByAndOpen));
+  }
+
+  /**
+   * Ids of the restaurants matching the search query, ranked as by
+   * {@link #findRestaurantsBySearchQuery}, among every restaurant open during the slot that
+   * is within the serving radius of some point of the cell. Resolved for a given location and
+   * time by {@link #findRestaurantsByIds}.
+   */
+  public List<String> findRestaurantIdsBySearchQuery(GeoHash cell, String searchString,
+      Double servingRadiusInKms, int slot) {
+    CatalogSnapshot catalog = restaurantCatalog.getSnapshot();
+    BitSet candidates = catalog.findRestaurantsServingCell(cell, servingRadiusInKms, slot);
+
+    List<RestaurantEntity> restaurantEntityList = catalog.search(searchString, candidates);
+    List<String> restaurantIds = new ArrayList<>(restaurantEntityList.size());
+    for (RestaurantEntity restaurantEntity : restaurantEntityList) {
+      restaurantIds.add(restaurantEntity.getRestaurantId());
+    }
+    return restaurantIds;
+  }
+
+  /**
+   * The first maxCount restaurants with these ids that are within the serving radius and open
+   * at currentTime, in the order of the ids. Ids unknown to the catalog are skipped.
+   */
+  public List<Restaurant> findRestaurantsByIds(List<String> restaurantIds, Double latitude,
+      Double longitude, LocalTime currentTime, Double servingRadiusInKms, int maxCount) {
+    CatalogSnapshot catalog = restaurantCatalog.getSnapshot();
+    BitSet closeByAndOpen = catalog.findOpenRestaurantsCloseBy(latitude, longitude,
+        servingRadiusInKms, currentTime);
+    List<RestaurantEntity> restaurantEntityList = new ArrayList<>();
+    for (String restaurantId : restaurantIds) {
+      if (restaurantEntityList.size() >= maxCount) {
+        break;
+      }
+      int ordinal = catalog.ordinalOf(restaurantId);
+      if (ordinal >= 0 && closeByAndOpen.get(ordinal)) {
+        restaurantEntityList.add(catalog.getRestaurant(ordinal));
+      }
+    }
+    return RestaurantMapper.toRestaurants(restaurantEntityList);
+  }
+
+  /**
+   * Autocomplete of a partially typed query, limited to what restaurants open at currentTime
+   * within the serving radius offer. Most popular first.
+   */
+  public List<String> findSuggestions(Double latitude, Double longitude, String prefix,
+      LocalTime currentTime, Double servingRadiusInKms, int limit) {
+    CatalogSnapshot catalog = restaurantCatalog.getSnapshot();
+    BitSet closeByAndOpen = catalog.findOpenRestaurantsCloseBy(latitude, longitude,
+        servingRadiusInKms, currentTime);
+    return catalog.suggest(prefix, closeByAndOpen, limit);
+  }
+}
@@ -7,9 +7,12 @@
 
 package com.crio.qeats.services;
 
+import com.crio.qeats.dto.Restaurant;
 import com.crio.qeats.exchanges.GetRestaurantsRequest;
 import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.exchanges.GetSuggestionsResponse;
 import java.time.LocalTime;
+import java.util.function.Consumer;
 
 public interface RestaurantService {
 
@@ -27,6 +30,16 @@ public interface RestaurantService {
   GetRestaurantsResponse findAllRestaurantsCloseBy(
       GetRestaurantsRequest getRestaurantsRequest, LocalTime currentTime);
 
+  /**
+   * Same restaurants as findAllRestaurantsCloseBy, handed to the action one at a time as the
+   * repository finds them, so that they can be written out without holding the whole list.
+   * @param getRestaurantsRequest valid lat/long
+   * @param currentTime current time.
+   * @param action called once per open restaurant
+   */
+  void forEachRestaurantCloseBy(GetRestaurantsRequest getRestaurantsRequest,
+      LocalTime currentTime, Consumer<Restaurant> action);
+
   /**
    * Get the restaurants by processing the query.
    * -Ordering rules
@@ -40,11 +53,16 @@ public interface RestaurantService {
    *    - partial matches second
    *  4) Item attributes
    *    - partial and full matches in any order
+   * - Matching ignores case, accents and extra whitespace.
+   * - With a limit, only that many restaurants are returned, from the cursor on, and
+   *   nextCursor is set when more follow.
    * - For peak hours: 8AM - 10AM, 1PM-2PM, 7PM-9PM
    * - service radius is 3KMs.
    * - All other times, serving radius is 5KMs.
+   * - If nothing matches, tolerate typos: every word of the query may be 1 edit away from
+   *   a word of the same field from 4 letters, 2 edits from 8 letters; same ordering rules.
    * - If there are no restaurants, return empty list of restaurants.
-   * @param getRestaurantsRequest valid lat/long and searchFor
+   * @param getRestaurantsRequest valid lat/long and searchFor, optional limit and valid cursor
    * @return GetRestaurantsResponse object containing a list of open restaurants or an
    *     empty list if none fits the criteria.
    */
@@ -62,4 +80,19 @@ public interface RestaurantService {
    */
   GetRestaurantsResponse findRestaurantsBySearchQueryMt(
       GetRestaurantsRequest getRestaurantsRequest, LocalTime currentTime);
+
+  /**
+   * Autocomplete a partially typed search query.
+   * - Restaurant names, cuisines and item names starting with the query, or having a word
+   *   starting with it, ignoring case.
+   * - Most popular first, popularity being the number of restaurants offering the term.
+   * - Only terms offered by a restaurant open now within the serving radius, same radius
+   *   rules as above.
+   * @param getRestaurantsRequest valid lat/long, and the partial query in searchFor
+   * @param limit maximum number of completions
+   * @param currentTime current time
+   * @return GetSuggestionsResponse object containing the completions, or an empty list.
+   */
+  GetSuggestionsResponse findSuggestions(GetRestaurantsRequest getRestaurantsRequest,
+      int limit, LocalTime currentTime);
 }
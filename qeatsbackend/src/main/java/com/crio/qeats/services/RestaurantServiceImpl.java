@@ -7,36 +7,52 @@
 
 package com.crio.qeats.services;
 
+import ch.hsr.geohash.GeoHash;
+import com.crio.qeats.cache.SearchResultCache;
 import com.crio.qeats.dto.Restaurant;
 import com.crio.qeats.exchanges.GetRestaurantsRequest;
 import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.exchanges.GetSuggestionsResponse;
+import com.crio.qeats.indexes.OpenHoursIndex;
 import com.crio.qeats.models.RestaurantEntity;
 import com.crio.qeats.repositoryservices.RestaurantRepositoryService;
+import com.crio.qeats.repositoryservices.RestaurantSearchEngine;
 import com.crio.qeats.utils.GeoUtils;
 import com.crio.qeats.utils.PeakHoursUtils;
+import com.crio.qeats.utils.TextNormalizer;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
 
 import java.nio.file.Paths;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.stream.Collectors;
-
-import javax.annotation.Resource;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import lombok.Data;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ansi.AnsiStyle;
 import org.springframework.stereotype.Service;
 
@@ -50,9 +66,59 @@ public class RestaurantServiceImpl implements RestaurantService {
   private final Double peakHoursServingRadiusInKms = 3.0;
   private final Double normalHoursServingRadiusInKms = 5.0;
   
-  @Resource(name = "restaurantRepositoryServiceImpl")
+  // The @Primary implementation when an alternative nearby engine is enabled.
+  @Autowired
   private RestaurantRepositoryService restaurantRepositoryService;
 
+  @Value("${qeats.search.executor.threads:32}")
+  private int searchThreads;
+
+  @Value("${qeats.search.executor.queue-size:256}")
+  private int searchQueueSize;
+
+  @Value("${qeats.search.deadline-ms:500}")
+  private long searchDeadlineInMs;
+
+  @Autowired(required = false)
+  private MeterRegistry meterRegistry;
+
+  private ExecutorService searchExecutor;
+
+  // Answers whole search queries in one pass; the four repository legs below are used when it
+  // is disabled.
+  @Autowired
+  private RestaurantSearchEngine restaurantSearchEngine;
+
+  @Autowired
+  private SearchResultCache searchResultCache;
+
+  /**
+   * Starts the pool running the legs of multi-threaded searches, instead of the JVM-wide
+   * common pool. The legs block on Mongo, so it is sized in threads rather than cores. When
+   * all threads are busy and the queue is full, further legs are rejected and left out of the
+   * response, which is flagged partial, so the request thread never runs a leg past its
+   * deadline.
+   */
+  @PostConstruct
+  public void initSearchExecutor() {
+    AtomicInteger threadNumber = new AtomicInteger();
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(searchThreads, searchThreads,
+        60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(searchQueueSize), runnable -> {
+          Thread thread = new Thread(runnable, "search-" + threadNumber.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    executor.allowCoreThreadTimeOut(true);
+    searchExecutor = meterRegistry == null
+        ? executor : ExecutorServiceMetrics.monitor(meterRegistry, executor, "qeats.search");
+  }
+
+  @PreDestroy
+  public void shutdownSearchExecutor() {
+    if (searchExecutor != null) {
+      searchExecutor.shutdown();
+    }
+  }
 
   // TODO: CRIO_TASK_MODULE_RESTAURANTSAPI - Implement findAllRestaurantsCloseby.
   // Check RestaurantService.java file for the interface contract.
@@ -70,6 +136,15 @@ public class RestaurantServiceImpl implements RestaurantService {
     return new GetRestaurantsResponse(readRests); 
   }
 
+  @Override
+  public void forEachRestaurantCloseBy(GetRestaurantsRequest getRestaurantsRequest,
+      LocalTime currentTime, Consumer<Restaurant> action) {
+    Double servingRadiusInKms = peakHoursUtil.isPeakHour(currentTime)
+        ? peakHoursServingRadiusInKms : normalHoursServingRadiusInKms;
+    restaurantRepositoryService.forEachRestaurantCloseBy(getRestaurantsRequest.getLatitude(),
+        getRestaurantsRequest.getLongitude(), currentTime, servingRadiusInKms, action);
+  }
+
 
   // TODO: CRIO_TASK_MODULE_RESTAURANTSEARCH
   // Implement findRestaurantsBySearchQuery. The request object has the search string.
@@ -81,17 +156,8 @@ public class RestaurantServiceImpl implements RestaurantService {
   // Remember, a restaurant must be present only once in the resulting list.
   // Check RestaurantService.java file for the interface contract.
 
-  private void addListToSet(List<Restaurant> list, LinkedHashSet<Restaurant> set) {
-    if (list != null) {
-      set.addAll((HashSet<Restaurant>)list.stream().collect(
-          Collectors.toCollection(LinkedHashSet::new)));
-    }
-  }
-
-  private void getUniquieResults(List<List<Restaurant>> llR, LinkedHashSet<Restaurant> set) {
-    for (List<Restaurant> l: llR) {
-      addListToSet(l, set);
-    }
+  private boolean isSearchEngineEnabled() {
+    return restaurantSearchEngine != null && restaurantSearchEngine.isEnabled();
   }
 
   @Override
@@ -99,9 +165,9 @@ public class RestaurantServiceImpl implements RestaurantService {
       GetRestaurantsRequest getRestaurantsRequest, LocalTime currentTime) {
     Double latitude = getRestaurantsRequest.getLatitude();
     Double longitude = getRestaurantsRequest.getLongitude();
-    String searchString = getRestaurantsRequest.getSearchFor();
+    String searchString = TextNormalizer.normalize(getRestaurantsRequest.getSearchFor());
     
-    if (searchString == null || searchString == "") {
+    if (searchString == null || searchString.isEmpty()) {
 
       return new GetRestaurantsResponse(new ArrayList<Restaurant>()); 
     }
@@ -109,37 +175,30 @@ public class RestaurantServiceImpl implements RestaurantService {
     Double servingRadiusInKms = isPeakHour
         ?
         peakHoursServingRadiusInKms : normalHoursServingRadiusInKms;
+    ResultPage page = ResultPage.of(getRestaurantsRequest);
+    if (isSearchEngineEnabled()) {
+      searchWithEngine(latitude, longitude, searchString, currentTime, servingRadiusInKms, page);
+      return page.toResponse(false);
+    }
 
-    LinkedHashSet<Restaurant> uniqueRestaurants = new LinkedHashSet<Restaurant>();
-    
-    List<Restaurant> nameResult = restaurantRepositoryService
-        .findRestaurantsByName(latitude, longitude, 
-        searchString, currentTime, servingRadiusInKms);
-    
-
-    List<Restaurant> attributeResult = restaurantRepositoryService
-        .findRestaurantsByAttributes(latitude, longitude, 
-        searchString, currentTime, servingRadiusInKms);
-    
-
-    List<Restaurant> itemResult = restaurantRepositoryService
-        .findRestaurantsByItemName(latitude, longitude, 
-        searchString, currentTime, servingRadiusInKms);
-    
-
-    List<Restaurant> itemAttributeResult = restaurantRepositoryService
-        .findRestaurantsByItemAttributes(latitude, longitude, 
-        searchString, currentTime, servingRadiusInKms);
-
-    getUniquieResults(Arrays.asList(nameResult, attributeResult, itemResult, itemAttributeResult),
-        uniqueRestaurants);
-
-
-    if (uniqueRestaurants.size() != 0) {
-      return new GetRestaurantsResponse((ArrayList<Restaurant>)uniqueRestaurants.stream()
-        .collect(Collectors.toList()));
+    // In ranking order; once the page is full the remaining sources are not queried.
+    List<Supplier<List<Restaurant>>> sources = Arrays.asList(
+        () -> restaurantRepositoryService.findRestaurantsByName(latitude, longitude,
+            searchString, currentTime, servingRadiusInKms),
+        () -> restaurantRepositoryService.findRestaurantsByAttributes(latitude, longitude,
+            searchString, currentTime, servingRadiusInKms),
+        () -> restaurantRepositoryService.findRestaurantsByItemName(latitude, longitude,
+            searchString, currentTime, servingRadiusInKms),
+        () -> restaurantRepositoryService.findRestaurantsByItemAttributes(latitude, longitude,
+            searchString, currentTime, servingRadiusInKms));
+    for (Supplier<List<Restaurant>> source : sources) {
+      if (!page.addAll(source.get())) {
+        break;
+      }
     }
-    return new GetRestaurantsResponse(new ArrayList<Restaurant>());
+    addSimilarIfEmpty(page, latitude, longitude, searchString, currentTime,
+        servingRadiusInKms);
+    return page.toResponse(false);
   }
 
   // TODO: CRIO_TASK_MODULE_MULTITHREADING
@@ -151,9 +210,9 @@ public class RestaurantServiceImpl implements RestaurantService {
       GetRestaurantsRequest getRestaurantsRequest, LocalTime currentTime) {
     Double latitude = getRestaurantsRequest.getLatitude();
     Double longitude = getRestaurantsRequest.getLongitude();
-    String searchString = getRestaurantsRequest.getSearchFor();
+    String searchString = TextNormalizer.normalize(getRestaurantsRequest.getSearchFor());
         
-    if (searchString == null || searchString == "") {
+    if (searchString == null || searchString.isEmpty()) {
     
       return new GetRestaurantsResponse(new ArrayList<Restaurant>()); 
     }
@@ -161,43 +220,139 @@ public class RestaurantServiceImpl implements RestaurantService {
     Double servingRadiusInKms = isPeakHour
         ?
         peakHoursServingRadiusInKms : normalHoursServingRadiusInKms;
-    
-    LinkedHashSet<Restaurant> uniqueRestaurants = new LinkedHashSet<Restaurant>();
+    ResultPage page = ResultPage.of(getRestaurantsRequest);
+    if (isSearchEngineEnabled()) {
+      // A single in-memory pass, nothing to gain from running the legs in parallel.
+      searchWithEngine(latitude, longitude, searchString, currentTime, servingRadiusInKms, page);
+      return page.toResponse(false);
+    }
 
-    CompletableFuture<List<Restaurant>> nameResult  
-          = CompletableFuture.supplyAsync(() -> restaurantRepositoryService
-          .findRestaurantsByName(latitude, longitude, 
-          searchString, currentTime, servingRadiusInKms));
-        
-    CompletableFuture<List<Restaurant>> attributeResult
-          = CompletableFuture.supplyAsync(() ->  restaurantRepositoryService
-          .findRestaurantsByAttributes(latitude, longitude, 
-          searchString, currentTime, servingRadiusInKms));
-      
-  
-    CompletableFuture<List<Restaurant>> itemResult 
-          = CompletableFuture.supplyAsync(() -> restaurantRepositoryService
-          .findRestaurantsByItemName(latitude, longitude, 
+    // Never the JVM-wide common pool, which is unbounded and shared with unrelated work.
+    ExecutorService executor = searchExecutor;
+    if (executor == null) {
+      throw new IllegalStateException("Search executor is not started");
+    }
+    List<Future<List<Restaurant>>> legs = Arrays.asList(
+        submitLeg(executor, () -> restaurantRepositoryService
+            .findRestaurantsByName(latitude, longitude,
+            searchString, currentTime, servingRadiusInKms)),
+        submitLeg(executor, () -> restaurantRepositoryService
+            .findRestaurantsByAttributes(latitude, longitude,
+            searchString, currentTime, servingRadiusInKms)),
+        submitLeg(executor, () -> restaurantRepositoryService
+            .findRestaurantsByItemName(latitude, longitude,
+            searchString, currentTime, servingRadiusInKms)),
+        submitLeg(executor, () -> restaurantRepositoryService
+            .findRestaurantsByItemAttributes(latitude, longitude,
+            searchString, currentTime, servingRadiusInKms)));
+
+    // Legs that miss the deadline, fail or are rejected are left out and the response is
+    // flagged partial; the others keep their rank.
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(searchDeadlineInMs);
+    List<List<Restaurant>> results = new ArrayList<>();
+    boolean partial = false;
+    try {
+      for (Future<List<Restaurant>> leg : legs) {
+        try {
+          results.add(searchDeadlineInMs > 0
+              ? leg.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)
+              : leg.get());
+        } catch (TimeoutException e) {
+          partial = true;
+          log.warn("Search for {} missed the {} ms deadline", searchString,
+              searchDeadlineInMs);
+        } catch (ExecutionException e) {
+          partial = true;
+          log.warn("Search for {} failed", searchString, e.getCause());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          partial = true;
+          break;
+        }
+      }
+    } finally {
+      // Frees the pool from the legs nobody waits for anymore; no-op for those done.
+      for (Future<List<Restaurant>> leg : legs) {
+        leg.cancel(true);
+      }
+    }
+    for (List<Restaurant> result : results) {
+      if (!page.addAll(result)) {
+        break;
+      }
+    }
+    // A partial response may be empty only because of the missing legs.
+    if (!partial) {
+      addSimilarIfEmpty(page, latitude, longitude, searchString, currentTime,
+          servingRadiusInKms);
+    }
+    return page.toResponse(partial);
+  }
+
+  /**
+   * Submits a search leg; a leg the saturated pool rejects fails like any other leg.
+   */
+  private static Future<List<Restaurant>> submitLeg(ExecutorService executor,
+      Callable<List<Restaurant>> leg) {
+    try {
+      return executor.submit(leg);
+    } catch (RejectedExecutionException e) {
+      CompletableFuture<List<Restaurant>> rejected = new CompletableFuture<>();
+      rejected.completeExceptionally(e);
+      return rejected;
+    }
+  }
+
+  /**
+   * Searches the catalog, through the search result cache when there is one: the ranked ids
+   * matching the query from the request's geohash cell during its slot are computed once, and
+   * each request keeps those within its own serving radius and open at its exact time, only
+   * resolving as many as its page needs.
+   */
+  private void searchWithEngine(Double latitude, Double longitude, String searchString,
+      LocalTime currentTime, Double servingRadiusInKms, ResultPage page) {
+    if (searchResultCache == null) {
+      page.addAll(restaurantSearchEngine.findRestaurantsBySearchQuery(latitude, longitude,
           searchString, currentTime, servingRadiusInKms));
-      
-  
-    CompletableFuture<List<Restaurant>> itemAttributeResult 
-          = CompletableFuture.supplyAsync(() -> restaurantRepositoryService
-          .findRestaurantsByItemAttributes(latitude, longitude, 
+    } else {
+      GeoHash cell = GeoHash.withCharacterPrecision(latitude, longitude,
+          SearchResultCache.GEOHASH_PRECISION);
+      int slot = OpenHoursIndex.slotOf(currentTime);
+      SearchResultCache.Key key = SearchResultCache.getKey(searchString, cell,
+          servingRadiusInKms, slot);
+      List<String> restaurantIds = searchResultCache.get(key);
+      if (restaurantIds == null) {
+        restaurantIds = searchResultCache.put(key, restaurantSearchEngine
+            .findRestaurantIdsBySearchQuery(cell, searchString, servingRadiusInKms, slot));
+      }
+      page.addAll(restaurantSearchEngine.findRestaurantsByIds(restaurantIds, latitude,
+          longitude, currentTime, servingRadiusInKms, page.getResultsNeeded()));
+    }
+    addSimilarIfEmpty(page, latitude, longitude, searchString, currentTime,
+        servingRadiusInKms);
+  }
+
+  // Typo-tolerant search, only run when the exact search found nothing so that the common
+  // path stays cheap.
+  private void addSimilarIfEmpty(ResultPage page, Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    if (page.isEmpty() && restaurantSearchEngine != null) {
+      page.addAll(restaurantSearchEngine.findRestaurantsBySimilarQuery(latitude, longitude,
           searchString, currentTime, servingRadiusInKms));
-  
-    try {
-      getUniquieResults(Arrays.asList(nameResult.get(), attributeResult.get(), 
-          itemResult.get(), itemAttributeResult.get()),
-          uniqueRestaurants);
-    } catch (Exception e) {
-      System.out.print("Error in future");
     }
-    if (uniqueRestaurants.size() != 0) {
-      return new GetRestaurantsResponse((ArrayList<Restaurant>)uniqueRestaurants.stream()
-        .collect(Collectors.toList()));
+  }
+
+  @Override
+  public GetSuggestionsResponse findSuggestions(GetRestaurantsRequest getRestaurantsRequest,
+      int limit, LocalTime currentTime) {
+    String prefix = getRestaurantsRequest.getSearchFor();
+    if (prefix == null || prefix.trim().isEmpty() || restaurantSearchEngine == null) {
+      return new GetSuggestionsResponse(new ArrayList<>());
     }
-    return new GetRestaurantsResponse(new ArrayList<Restaurant>());    
+    Double servingRadiusInKms = peakHoursUtil.isPeakHour(currentTime)
+        ? peakHoursServingRadiusInKms : normalHoursServingRadiusInKms;
+    return new GetSuggestionsResponse(restaurantSearchEngine.findSuggestions(
+        getRestaurantsRequest.getLatitude(), getRestaurantsRequest.getLongitude(), prefix,
+        currentTime, servingRadiusInKms, limit));
   }
 }
-
@@ -0,0 +1,96 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.exchanges.GetRestaurantsRequest;
+import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.exchanges.PageCursor;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Merges ranked search results, source by source, into the page a request asked for.
+ * A restaurant is kept at its first, best ranked, position only. Restaurants before the page
+ * are only remembered by id, and merging stops one past the end of the page, so the work and
+ * memory of a request are bounded by its cursor and limit rather than by the number of
+ * matches.
+ */
+class ResultPage {
+
+  private final int offset;
+  private final int limit;
+  private final Set<String> seenRestaurantIds = new HashSet<>();
+  private final List<Restaurant> restaurants = new ArrayList<>();
+  private boolean hasMore;
+
+  ResultPage(int offset, int limit) {
+    this.offset = offset;
+    this.limit = limit;
+  }
+
+  /**
+   * The page of a request; every result when it has no limit.
+   * @param getRestaurantsRequest request with a valid cursor
+   */
+  static ResultPage of(GetRestaurantsRequest getRestaurantsRequest) {
+    String cursor = getRestaurantsRequest.getCursor();
+    Integer limit = getRestaurantsRequest.getLimit();
+    return new ResultPage(cursor == null ? 0 : PageCursor.toOffset(cursor),
+        limit == null ? Integer.MAX_VALUE : limit);
+  }
+
+  /**
+   * Number of ranked results needed to fill the page and tell whether another one follows.
+   */
+  int getResultsNeeded() {
+    return (int) Math.min(Integer.MAX_VALUE, (long) offset + limit + 1);
+  }
+
+  /**
+   * Adds the next ranked results.
+   * @return false once the page is full, later results are not needed
+   */
+  boolean addAll(List<Restaurant> rankedRestaurants) {
+    if (rankedRestaurants == null) {
+      return !hasMore;
+    }
+    for (Restaurant restaurant : rankedRestaurants) {
+      if (hasMore) {
+        return false;
+      }
+      if (!seenRestaurantIds.add(restaurant.getRestaurantId())
+          || seenRestaurantIds.size() <= offset) {
+        continue;
+      }
+      if (restaurants.size() < limit) {
+        restaurants.add(restaurant);
+      } else {
+        hasMore = true;
+      }
+    }
+    return !hasMore;
+  }
+
+  /**
+   * Whether nothing matched at all, on this page or before it.
+   */
+  boolean isEmpty() {
+    return seenRestaurantIds.isEmpty();
+  }
+
+  /**
+   * The response for the page. A partial page, missing whole sources, gets no cursor: the
+   * next page would rank them in and repeat or skip restaurants.
+   */
+  GetRestaurantsResponse toResponse(boolean partial) {
+    return new GetRestaurantsResponse(restaurants, partial,
+        hasMore && !partial ? PageCursor.fromOffset(offset + limit) : null);
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+/**
+ * Restaurant names as shown to customers: only ASCII letters and spaces are kept as they are,
+ * every other character is replaced by '?'. Derived once per restaurant rather than for every
+ * response.
+ */
+public class DisplayNameUtils {
+
+  public static final char REPLACEMENT = '?';
+
+  private DisplayNameUtils() {
+  }
+
+  /**
+   * Returns the display name of a restaurant name; the name itself when it has nothing to
+   * replace.
+   * @param name restaurant name, may be null
+   * @return display name, or null if name is null
+   */
+  public static String toDisplayName(String name) {
+    if (name == null) {
+      return null;
+    }
+    int first = 0;
+    while (first < name.length() && isDisplayed(name.charAt(first))) {
+      first++;
+    }
+    if (first == name.length()) {
+      return name;
+    }
+    char[] displayName = name.toCharArray();
+    for (int i = first; i < displayName.length; i++) {
+      if (!isDisplayed(displayName[i])) {
+        displayName[i] = REPLACEMENT;
+      }
+    }
+    return new String(displayName);
+  }
+
+  private static boolean isDisplayed(char c) {
+    return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || c == ' ';
+  }
+}
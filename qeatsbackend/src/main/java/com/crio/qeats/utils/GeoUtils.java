@@ -7,6 +7,9 @@
 
 package com.crio.qeats.utils;
 
+import ch.hsr.geohash.BoundingBox;
+import ch.hsr.geohash.GeoHash;
+import ch.hsr.geohash.WGS84Point;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
@@ -19,6 +22,30 @@ public class GeoUtils {
     return distance(srcLatitude, dstLatitude, srcLongitude, dstLongitude, 0, 0);
   }
 
+  /**
+   * Distance from the center of a geohash cell to its farthest corner: every point of the cell
+   * is within this distance of the center.
+   */
+  public static double findHalfDiagonalInKm(GeoHash cell) {
+    WGS84Point center = cell.getBoundingBoxCenterPoint();
+    BoundingBox boundingBox = cell.getBoundingBox();
+    return Math.max(
+        findDistanceInKm(center.getLatitude(), center.getLongitude(),
+            boundingBox.getMaxLat(), boundingBox.getMaxLon()),
+        findDistanceInKm(center.getLatitude(), center.getLongitude(),
+            boundingBox.getMinLat(), boundingBox.getMaxLon()));
+  }
+
+  /**
+   * Checks whether a point can be within the serving radius of some point of a geohash cell.
+   */
+  public static boolean isWithinReachOfCell(GeoHash cell, double servingRadiusInKms,
+      double latitude, double longitude) {
+    WGS84Point center = cell.getBoundingBoxCenterPoint();
+    return findDistanceInKm(center.getLatitude(), center.getLongitude(), latitude, longitude)
+        < servingRadiusInKms + findHalfDiagonalInKm(cell);
+  }
+
   /**
    * THIS IS BORROWED CODE. Calculate distance between two points in latitude and longitude taking
    * into account height difference. If you are not interested in height difference pass 0.0. Uses
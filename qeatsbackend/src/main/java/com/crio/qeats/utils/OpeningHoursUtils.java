@@ -0,0 +1,82 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Opening hours as minute-of-day integers, so that checking whether a restaurant is open does
+ * not need to parse or allocate anything per request.
+ */
+public class OpeningHoursUtils {
+
+  public static final int UNKNOWN = -1;
+
+  public static final int MINUTES_PER_DAY = 24 * 60;
+
+  private static final long NANOS_PER_MINUTE = 60_000_000_000L;
+
+  private OpeningHoursUtils() {
+  }
+
+  /**
+   * Parses "HH:mm" (or anything {@link LocalTime#parse} accepts) into a minute of the day.
+   * @param time time of day such as "18:00"
+   * @return minute of the day, or {@link #UNKNOWN} if the value is missing or malformed
+   */
+  public static int toMinuteOfDay(String time) {
+    if (time == null) {
+      return UNKNOWN;
+    }
+    if (time.length() == 5 && time.charAt(2) == ':') {
+      int hours = twoDigits(time, 0);
+      int minutes = twoDigits(time, 3);
+      if (hours >= 0 && hours < 24 && minutes >= 0 && minutes < 60) {
+        return hours * 60 + minutes;
+      }
+    }
+    try {
+      return LocalTime.parse(time).toSecondOfDay() / 60;
+    } catch (DateTimeParseException e) {
+      return UNKNOWN;
+    }
+  }
+
+  /**
+   * Checks whether a restaurant is open, excluding the opening and closing instants.
+   * When closesAt is before opensAt the restaurant is open past midnight.
+   * @param opensAtMinute opening minute of the day
+   * @param closesAtMinute closing minute of the day
+   * @param currentTime current time
+   * @return true if the restaurant is open at currentTime
+   */
+  public static boolean isOpen(int opensAtMinute, int closesAtMinute, LocalTime currentTime) {
+    if (opensAtMinute == UNKNOWN || closesAtMinute == UNKNOWN) {
+      return false;
+    }
+    long now = currentTime.toNanoOfDay();
+    long opensAt = opensAtMinute * NANOS_PER_MINUTE;
+    long closesAt = closesAtMinute * NANOS_PER_MINUTE;
+    if (opensAt < closesAt) {
+      return now > opensAt && now < closesAt;
+    }
+    if (opensAt > closesAt) {
+      return now > opensAt || now < closesAt;
+    }
+    return false;
+  }
+
+  private static int twoDigits(String time, int offset) {
+    int tens = time.charAt(offset) - '0';
+    int units = time.charAt(offset + 1) - '0';
+    if (tens < 0 || tens > 9 || units < 0 || units > 9) {
+      return UNKNOWN;
+    }
+    return tens * 10 + units;
+  }
+}
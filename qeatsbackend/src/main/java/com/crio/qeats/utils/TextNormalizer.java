@@ -0,0 +1,90 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * The one definition of when two texts match regardless of case, accents and spacing.
+ * Applied both to the values stored in the normalized fields of the entities and to search
+ * queries, so that matching is a plain comparison that an index can answer.
+ */
+public class TextNormalizer {
+
+  private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  private static final String REGEX_METACHARACTERS = "\\^$.|?*+()[]{}";
+
+  private TextNormalizer() {
+  }
+
+  /**
+   * Lowercases, strips accents ("Crème Brûlée" becomes "creme brulee"), trims and collapses
+   * runs of whitespace into one space.
+   * @param text text to normalize, may be null
+   * @return normalized text, or null if text is null
+   */
+  public static String normalize(String text) {
+    if (text == null) {
+      return null;
+    }
+    String normalized = text;
+    if (!isAscii(normalized)) {
+      normalized = COMBINING_MARKS.matcher(Normalizer.normalize(normalized, Normalizer.Form.NFD))
+          .replaceAll("");
+    }
+    normalized = WHITESPACE.matcher(normalized.trim()).replaceAll(" ");
+    return normalized.toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Normalizes every value of a list; null values are dropped.
+   */
+  public static List<String> normalize(List<String> texts) {
+    List<String> normalized = new ArrayList<>();
+    if (texts != null) {
+      for (String text : texts) {
+        if (text != null) {
+          normalized.add(normalize(text));
+        }
+      }
+    }
+    return normalized;
+  }
+
+  /**
+   * Regular expression matching the values starting with the normalized text. Anchored, so
+   * that Mongo answers it with a range scan of an index on the field.
+   */
+  public static String toPrefixRegex(String text) {
+    String normalized = normalize(text);
+    StringBuilder regex = new StringBuilder(normalized.length() + 8).append('^');
+    for (int i = 0; i < normalized.length(); i++) {
+      char c = normalized.charAt(i);
+      if (REGEX_METACHARACTERS.indexOf(c) >= 0) {
+        regex.append('\\');
+      }
+      regex.append(c);
+    }
+    return regex.toString();
+  }
+
+  private static boolean isAscii(String text) {
+    for (int i = 0; i < text.length(); i++) {
+      if (text.charAt(i) >= 0x80) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.utils.FixtureHelpers;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class BinaryRestaurantListCodecTest {
+
+  private static final String FIXTURES = "fixtures/exchanges";
+
+  @Test
+  void roundTripsRestaurants() throws IOException {
+    List<Restaurant> restaurants = listOfRestaurants();
+    BinaryRestaurantListCodec codec = new BinaryRestaurantListCodec(-1);
+
+    List<Restaurant> decoded = codec.decode(codec.encode(restaurants));
+
+    assertEquals(restaurants, decoded);
+    assertTrue(decoded.get(0).isOpenAt(LocalTime.of(18, 1)));
+  }
+
+  @Test
+  void roundTripsMissingFields() {
+    Restaurant sparse = new Restaurant();
+    sparse.setId("mongo-id");
+    sparse.setRestaurantId("99");
+    sparse.setAttributes(Arrays.asList("Tamil", null));
+    List<Restaurant> restaurants = Arrays.asList(sparse, new Restaurant());
+    BinaryRestaurantListCodec codec = new BinaryRestaurantListCodec(-1);
+
+    assertEquals(restaurants, codec.decode(codec.encode(restaurants)));
+  }
+
+  @Test
+  void deflatesLargeListsAndStaysSmallerThanJson() throws IOException {
+    List<Restaurant> restaurants = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      restaurants.addAll(listOfRestaurants());
+    }
+    BinaryRestaurantListCodec codec = new BinaryRestaurantListCodec(1024);
+
+    byte[] encoded = codec.encode(restaurants);
+
+    assertEquals(BinaryRestaurantListCodec.FLAG_DEFLATED, encoded[2]);
+    assertEquals(restaurants, codec.decode(encoded));
+    assertTrue(encoded.length < new JsonRestaurantListCodec().encode(restaurants).length);
+  }
+
+  @Test
+  void readsOtherFormatsAsMisses() throws IOException {
+    byte[] json = new JsonRestaurantListCodec().encode(listOfRestaurants());
+    byte[] nextVersion = {BinaryRestaurantListCodec.MAGIC, BinaryRestaurantListCodec.VERSION + 1,
+        0};
+    byte[] truncated = Arrays.copyOf(
+        new BinaryRestaurantListCodec(-1).encode(listOfRestaurants()), 20);
+    BinaryRestaurantListCodec codec = new BinaryRestaurantListCodec(-1);
+
+    assertNull(codec.decode(json));
+    assertNull(codec.decode(nextVersion));
+    assertNull(codec.decode(truncated));
+  }
+
+  static List<Restaurant> listOfRestaurants() throws IOException {
+    String fixture = FixtureHelpers.fixture(FIXTURES + "/initial_data_set_restaurants.json");
+    return new ObjectMapper().readValue(fixture, new TypeReference<List<Restaurant>>() {
+    });
+  }
+}
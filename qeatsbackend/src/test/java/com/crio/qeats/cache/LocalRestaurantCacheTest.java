@@ -0,0 +1,77 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import ch.hsr.geohash.GeoHash;
+import com.crio.qeats.dto.Restaurant;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class LocalRestaurantCacheTest {
+
+  private final CellKey near = new CellKey(GeoHash.withCharacterPrecision(20.0, 30.0, 6), 3.0,
+      72);
+
+  private final CellKey far = new CellKey(GeoHash.withCharacterPrecision(21.0, 30.0, 6), 3.0,
+      72);
+
+  private LocalRestaurantCache localRestaurantCache;
+
+  @BeforeEach
+  void setup() {
+    localRestaurantCache = new LocalRestaurantCache();
+    ReflectionTestUtils.setField(localRestaurantCache, "maxEntries", 100L);
+    ReflectionTestUtils.setField(localRestaurantCache, "ttlInSeconds", 60L);
+    localRestaurantCache.initCache();
+  }
+
+  @Test
+  void aChangedRestaurantEvictsTheEntriesListingIt() {
+    localRestaurantCache.put(near, Arrays.asList(restaurant("1", 20.0), restaurant("2", 20.0)));
+    localRestaurantCache.put(far, Collections.singletonList(restaurant("3", 21.0)));
+
+    localRestaurantCache.invalidateRestaurant("2", null, null);
+
+    assertNull(localRestaurantCache.get(near));
+    assertNotNull(localRestaurantCache.get(far));
+  }
+
+  @Test
+  void aMovedRestaurantEvictsTheCellsItCanBeServedTo() {
+    localRestaurantCache.put(near, Collections.singletonList(restaurant("1", 20.0)));
+    localRestaurantCache.put(far, Collections.singletonList(restaurant("3", 21.0)));
+
+    localRestaurantCache.invalidateRestaurant("4", 20.01, 30.0);
+
+    assertNull(localRestaurantCache.get(near));
+    assertNotNull(localRestaurantCache.get(far));
+  }
+
+  @Test
+  void replacedEntriesStayIndexed() {
+    localRestaurantCache.put(near, Collections.singletonList(restaurant("1", 20.0)));
+    localRestaurantCache.put(near, Collections.singletonList(restaurant("1", 20.0)));
+
+    localRestaurantCache.invalidateRestaurant("1", null, null);
+
+    assertNull(localRestaurantCache.get(near));
+  }
+
+  private static Restaurant restaurant(String restaurantId, double latitude) {
+    Restaurant restaurant = new Restaurant();
+    restaurant.setRestaurantId(restaurantId);
+    restaurant.setLatitude(latitude);
+    restaurant.setLongitude(30.0);
+    return restaurant;
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.crio.qeats.dto.Restaurant;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.management.ThreadMXBean;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Compares payload size and encode/decode time of the cache codecs.
+ * Run with -Dqeats.benchmarks=true; results are printed, not asserted.
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "qeats.benchmarks", matches = "true")
+class RestaurantListCodecBenchmarkTest {
+
+  private static final int WARMUP_ROUNDS = 2_000;
+  private static final int MEASURED_ROUNDS = 5_000;
+
+  @Test
+  void compareCodecs() throws IOException {
+    for (int size : new int[] {10, 100, 1000}) {
+      List<Restaurant> restaurants = restaurants(size);
+      run("json", new JsonRestaurantListCodec(), restaurants);
+      run("binary", new BinaryRestaurantListCodec(-1), restaurants);
+      run("binary+deflate", new BinaryRestaurantListCodec(1024), restaurants);
+    }
+  }
+
+  /**
+   * Bytes allocated by a JSON encode and decode, with a mapper and list type built for the
+   * call as the cache first did, and with the codec's shared reader and writer.
+   */
+  @Test
+  void compareJsonAllocations() throws IOException {
+    ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    for (int size : new int[] {10, 100, 1000}) {
+      List<Restaurant> restaurants = restaurants(size);
+      JsonRestaurantListCodec codec = new JsonRestaurantListCodec(new ObjectMapper());
+      RestaurantListCodec perCall = new RestaurantListCodec() {
+        @Override
+        public byte[] encode(List<Restaurant> restaurants) {
+          return new JsonRestaurantListCodec(new ObjectMapper()).encode(restaurants);
+        }
+
+        @Override
+        public List<Restaurant> decode(byte[] bytes) {
+          return new JsonRestaurantListCodec(new ObjectMapper()).decode(bytes);
+        }
+      };
+      for (RestaurantListCodec measured : Arrays.asList(perCall, codec)) {
+        for (int i = 0; i < WARMUP_ROUNDS / 10; i++) {
+          measured.decode(measured.encode(restaurants));
+        }
+        int rounds = Math.max(10, MEASURED_ROUNDS / restaurants.size() * 10);
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        for (int i = 0; i < rounds; i++) {
+          measured.decode(measured.encode(restaurants));
+        }
+        allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocated;
+
+        System.out.printf("%-15s %5d restaurants: %10d bytes allocated per encode+decode%n",
+            measured == codec ? "json/shared" : "json/per-call", size, allocated / rounds);
+      }
+    }
+  }
+
+  private void run(String name, RestaurantListCodec codec, List<Restaurant> restaurants) {
+    byte[] encoded = codec.encode(restaurants);
+    assertEquals(restaurants, codec.decode(encoded));
+    int rounds = Math.max(10, MEASURED_ROUNDS / restaurants.size() * 10);
+    for (int i = 0; i < WARMUP_ROUNDS / 10; i++) {
+      codec.decode(codec.encode(restaurants));
+    }
+
+    long start = System.nanoTime();
+    for (int i = 0; i < rounds; i++) {
+      encoded = codec.encode(restaurants);
+    }
+    long encodeNanos = (System.nanoTime() - start) / rounds;
+    start = System.nanoTime();
+    for (int i = 0; i < rounds; i++) {
+      codec.decode(encoded);
+    }
+    long decodeNanos = (System.nanoTime() - start) / rounds;
+
+    System.out.printf("%-15s %5d restaurants: %8d bytes, encode %8d us, decode %8d us%n",
+        name, restaurants.size(), encoded.length, encodeNanos / 1000, decodeNanos / 1000);
+  }
+
+  private static List<Restaurant> restaurants(int size) throws IOException {
+    List<Restaurant> templates = BinaryRestaurantListCodecTest.listOfRestaurants();
+    List<String> cuisines = Arrays.asList("North Indian", "South Indian", "Chinese", "Italian",
+        "Tamil", "Bengali", "Continental", "Desserts");
+    Random random = new Random(1);
+    List<Restaurant> restaurants = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      Restaurant template = templates.get(i % templates.size());
+      Restaurant restaurant = new Restaurant();
+      restaurant.setId(String.valueOf(1000 + i));
+      restaurant.setRestaurantId(String.valueOf(1000 + i));
+      restaurant.setName(template.getName() + " " + i);
+      restaurant.setCity(template.getCity());
+      restaurant.setImageUrl("https://images.qeats.example/restaurants/" + (1000 + i) + ".jpg");
+      restaurant.setLatitude(template.getLatitude() + random.nextDouble() / 100);
+      restaurant.setLongitude(template.getLongitude() + random.nextDouble() / 100);
+      restaurant.setOpensAt(template.getOpensAt());
+      restaurant.setClosesAt(template.getClosesAt());
+      restaurant.setAttributes(Arrays.asList(cuisines.get(random.nextInt(cuisines.size())),
+          cuisines.get(random.nextInt(cuisines.size()))));
+      restaurants.add(restaurant);
+    }
+    return restaurants;
+  }
+}
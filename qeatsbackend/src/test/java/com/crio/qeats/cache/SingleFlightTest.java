@@ -0,0 +1,97 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+  @Test
+  void concurrentCallersShareOneLoad() throws Exception {
+    SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch loaderStarted = new CountDownLatch(1);
+    CountDownLatch releaseLoader = new CountDownLatch(1);
+    int callers = 16;
+    ExecutorService executor = Executors.newFixedThreadPool(callers);
+    try {
+      List<Future<Integer>> results = new ArrayList<>();
+      for (int i = 0; i < callers; i++) {
+        results.add(executor.submit(() -> singleFlight.load("key", 0, () -> {
+          loads.incrementAndGet();
+          loaderStarted.countDown();
+          await(releaseLoader);
+          return 42;
+        })));
+      }
+      loaderStarted.await(5, TimeUnit.SECONDS);
+      // Give the other callers time to join the running load before releasing it.
+      Thread.sleep(200);
+      releaseLoader.countDown();
+
+      for (Future<Integer> result : results) {
+        assertEquals(42, (int) result.get(5, TimeUnit.SECONDS));
+      }
+      assertEquals(1, loads.get());
+      assertEquals(0, singleFlight.inFlightCount());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void failuresAreNotRemembered() {
+    SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+
+    assertThrows(IllegalStateException.class, () -> singleFlight.load("key", 0, () -> {
+      throw new IllegalStateException("backend down");
+    }));
+    assertEquals(7, (int) singleFlight.load("key", 0, () -> 7));
+  }
+
+  @Test
+  void callersStopWaitingForAHungLoad() throws Exception {
+    SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+    CountDownLatch loaderStarted = new CountDownLatch(1);
+    CountDownLatch releaseLoader = new CountDownLatch(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Integer> hung = executor.submit(() -> singleFlight.load("key", 0, () -> {
+        loaderStarted.countDown();
+        await(releaseLoader);
+        return 42;
+      }));
+      loaderStarted.await(5, TimeUnit.SECONDS);
+
+      assertEquals(7, (int) singleFlight.load("key", 50, () -> 7));
+
+      releaseLoader.countDown();
+      assertEquals(42, (int) hung.get(5, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
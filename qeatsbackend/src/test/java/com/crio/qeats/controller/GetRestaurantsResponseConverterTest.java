@@ -0,0 +1,120 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import com.crio.qeats.cache.RestaurantJsonCache;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.exchanges.PageCursor;
+import com.crio.qeats.utils.FixtureHelpers;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class GetRestaurantsResponseConverterTest {
+
+  private static final String FIXTURES = "fixtures/exchanges";
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private RestaurantJsonCache restaurantJsonCache;
+
+  private GetRestaurantsResponseConverter converter;
+
+  @BeforeEach
+  void setup() {
+    restaurantJsonCache = new RestaurantJsonCache();
+    ReflectionTestUtils.setField(restaurantJsonCache, "maxEntries", 100L);
+    ReflectionTestUtils.setField(restaurantJsonCache, "objectMapper", objectMapper);
+    restaurantJsonCache.initCache();
+
+    converter = new GetRestaurantsResponseConverter();
+    ReflectionTestUtils.setField(converter, "restaurantJsonCache", restaurantJsonCache);
+    ReflectionTestUtils.setField(converter, "objectMapper", objectMapper);
+  }
+
+  @Test
+  void writesTheSameJsonAsJackson() throws IOException {
+    GetRestaurantsResponse getRestaurantsResponse = loadSampleResponseList();
+    assertWrittenAsByJackson(getRestaurantsResponse);
+    // Now from the cached fragments.
+    assertWrittenAsByJackson(getRestaurantsResponse);
+    assertEquals(getRestaurantsResponse.getRestaurants().size(),
+        restaurantJsonCache.getStats().hitCount());
+
+    getRestaurantsResponse.setPartial(true);
+    getRestaurantsResponse.setNextCursor(PageCursor.fromOffset(20));
+    assertWrittenAsByJackson(getRestaurantsResponse);
+    assertWrittenAsByJackson(new GetRestaurantsResponse(Collections.emptyList()));
+    assertWrittenAsByJackson(new GetRestaurantsResponse(null));
+  }
+
+  @Test
+  void rewritesRestaurantsThatChanged() throws IOException {
+    GetRestaurantsResponse getRestaurantsResponse = loadSampleResponseList();
+    assertWrittenAsByJackson(getRestaurantsResponse);
+
+    Restaurant restaurant = getRestaurantsResponse.getRestaurants().get(0);
+    restaurant.setName("Crème Brûlée Café");
+    restaurant.getAttributes().add("Desserts");
+    assertWrittenAsByJackson(getRestaurantsResponse);
+
+    restaurantJsonCache.evict(restaurant.getRestaurantId());
+    assertWrittenAsByJackson(getRestaurantsResponse);
+  }
+
+  @Test
+  void onlyWritesRestaurantLists() {
+    assertFalse(converter.canWrite(Restaurant.class, MediaType.APPLICATION_JSON));
+    assertFalse(converter.canRead(GetRestaurantsResponse.class, MediaType.APPLICATION_JSON));
+  }
+
+  private void assertWrittenAsByJackson(GetRestaurantsResponse getRestaurantsResponse)
+      throws IOException {
+    MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+    converter.write(getRestaurantsResponse, MediaType.APPLICATION_JSON, outputMessage);
+
+    assertEquals(objectMapper.writeValueAsString(withDisplayNames(getRestaurantsResponse)),
+        outputMessage.getBodyAsString(StandardCharsets.UTF_8));
+    assertEquals(MediaType.APPLICATION_JSON_UTF8, outputMessage.getHeaders().getContentType());
+  }
+
+  private static GetRestaurantsResponse withDisplayNames(
+      GetRestaurantsResponse getRestaurantsResponse) {
+    if (getRestaurantsResponse.getRestaurants() == null) {
+      return getRestaurantsResponse;
+    }
+    List<Restaurant> restaurants = new ArrayList<>();
+    for (Restaurant restaurant : getRestaurantsResponse.getRestaurants()) {
+      Restaurant shown = new Restaurant(restaurant);
+      shown.setName(restaurant.getDisplayName());
+      restaurants.add(shown);
+    }
+    GetRestaurantsResponse shown = new GetRestaurantsResponse(restaurants);
+    shown.setPartial(getRestaurantsResponse.isPartial());
+    shown.setNextCursor(getRestaurantsResponse.getNextCursor());
+    return shown;
+  }
+
+  private GetRestaurantsResponse loadSampleResponseList() throws IOException {
+    String fixture =
+        FixtureHelpers.fixture(FIXTURES + "/list_restaurant_response.json");
+
+    return objectMapper.readValue(fixture, GetRestaurantsResponse.class);
+  }
+}
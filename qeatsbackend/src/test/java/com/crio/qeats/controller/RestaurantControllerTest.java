@@ -15,23 +15,34 @@ import static com.crio.qeats.controller.RestaurantController.MENU_API;
 import static com.crio.qeats.controller.RestaurantController.POST_ORDER_API;
 import static com.crio.qeats.controller.RestaurantController.RESTAURANTS_API;
 import static com.crio.qeats.controller.RestaurantController.RESTAURANT_API_ENDPOINT;
+import static com.crio.qeats.controller.RestaurantController.SUGGEST_API;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.MediaType.APPLICATION_JSON_UTF8;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.crio.qeats.QEatsApplication;
+import com.crio.qeats.cache.RestaurantJsonCache;
+import com.crio.qeats.dto.Restaurant;
 import com.crio.qeats.exchanges.GetRestaurantsRequest;
 import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.exchanges.GetSuggestionsResponse;
+import com.crio.qeats.exchanges.PageCursor;
 import com.crio.qeats.services.RestaurantService;
 import com.crio.qeats.utils.FixtureHelpers;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -39,8 +50,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.net.URI;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.function.Consumer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -48,6 +62,7 @@ import org.mockito.InjectMocks;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -55,7 +70,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.util.UriComponentsBuilder;
@@ -74,6 +91,7 @@ public class RestaurantControllerTest {
   private static final String CLEAR_CART_API_URI = RESTAURANT_API_ENDPOINT + CART_CLEAR_API;
   private static final String POST_ORDER_API_URI = RESTAURANT_API_ENDPOINT + POST_ORDER_API;
   private static final String LIST_ORDERS_API_URI = RESTAURANT_API_ENDPOINT + GET_ORDERS_API;
+  private static final String SUGGEST_API_URI = RESTAURANT_API_ENDPOINT + SUGGEST_API;
 
   private static final String FIXTURES = "fixtures/exchanges";
   private ObjectMapper objectMapper;
@@ -83,6 +101,9 @@ public class RestaurantControllerTest {
   @MockBean
   private RestaurantService restaurantService;
 
+  @Autowired
+  private RestaurantJsonCache restaurantJsonCache;
+
 
   @InjectMocks
   private RestaurantController restaurantController;
@@ -170,6 +191,101 @@ public class RestaurantControllerTest {
 
   }
 
+  @Test
+  public void suggestionsForPartialQuery() throws Exception {
+    when(restaurantService.findSuggestions(any(GetRestaurantsRequest.class), anyInt(),
+        any(LocalTime.class)))
+        .thenReturn(new GetSuggestionsResponse(Arrays.asList("Biryani", "Chicken Biryani")));
+
+    URI uri = UriComponentsBuilder
+        .fromPath(SUGGEST_API_URI)
+        .queryParam("latitude", "20.21")
+        .queryParam("longitude", "30.31")
+        .queryParam("searchFor", "bir")
+        .queryParam("limit", "5")
+        .build().toUri();
+
+    MockHttpServletResponse response = mvc.perform(
+        get(uri.toString()).accept(APPLICATION_JSON_UTF8)
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.OK.value(), response.getStatus());
+    assertEquals("{\"suggestions\":[\"Biryani\",\"Chicken Biryani\"]}",
+        response.getContentAsString());
+
+    ArgumentCaptor<GetRestaurantsRequest> argumentCaptor = ArgumentCaptor
+        .forClass(GetRestaurantsRequest.class);
+    verify(restaurantService, times(1))
+        .findSuggestions(argumentCaptor.capture(), eq(5), any(LocalTime.class));
+    assertEquals("bir", argumentCaptor.getValue().getSearchFor());
+
+    response = mvc.perform(
+        get(SUGGEST_API_URI + "?latitude=20.21&longitude=30.31&searchFor=bir&limit=100")
+            .accept(APPLICATION_JSON_UTF8)
+    ).andReturn().getResponse();
+    assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus());
+  }
+
+  @Test
+  public void searchResultsArePaginatedWithLimitAndCursor() throws Exception {
+    String cursor = PageCursor.fromOffset(2);
+    when(restaurantService.findRestaurantsBySearchQuery(any(GetRestaurantsRequest.class),
+        any(LocalTime.class)))
+        .thenReturn(new GetRestaurantsResponse(new ArrayList<>(), false,
+            PageCursor.fromOffset(4)));
+
+    MockHttpServletResponse response = mvc.perform(
+        get(RESTAURANT_API_URI + "?latitude=20.21&longitude=30.31&searchFor=bir&limit=2&cursor="
+            + cursor).accept(APPLICATION_JSON_UTF8)
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.OK.value(), response.getStatus());
+    assertEquals("{\"restaurants\":[],\"nextCursor\":\"" + PageCursor.fromOffset(4) + "\"}",
+        response.getContentAsString());
+    ArgumentCaptor<GetRestaurantsRequest> argumentCaptor = ArgumentCaptor
+        .forClass(GetRestaurantsRequest.class);
+    verify(restaurantService, times(1))
+        .findRestaurantsBySearchQuery(argumentCaptor.capture(), any(LocalTime.class));
+    assertEquals(Integer.valueOf(2), argumentCaptor.getValue().getLimit());
+    assertEquals(cursor, argumentCaptor.getValue().getCursor());
+
+    for (String invalid : Arrays.asList("limit=0", "limit=101", "cursor=bm90LWEtY3Vyc29y")) {
+      response = mvc.perform(
+          get(RESTAURANT_API_URI + "?latitude=20.21&longitude=30.31&searchFor=bir&" + invalid)
+              .accept(APPLICATION_JSON_UTF8)
+      ).andReturn().getResponse();
+      assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus(), invalid);
+    }
+  }
+
+  @Test
+  public void nearbyRestaurantsAreStreamedOnRequest() throws Exception {
+    GetRestaurantsResponse sampleResponse = loadSampleResponseList();
+    doAnswer(invocation -> {
+      Consumer<Restaurant> action = invocation.getArgument(2);
+      sampleResponse.getRestaurants().forEach(action);
+      return null;
+    }).when(restaurantService).forEachRestaurantCloseBy(any(GetRestaurantsRequest.class),
+        any(LocalTime.class), any());
+    ReflectionTestUtils.setField(restaurantController, "restaurantJsonCache",
+        restaurantJsonCache);
+    ReflectionTestUtils.setField(restaurantController, "objectMapper", objectMapper);
+
+    MvcResult result = mvc.perform(
+        get(RESTAURANT_API_URI + "?latitude=20.21&longitude=30.31&stream=true")
+            .accept(APPLICATION_JSON_UTF8)
+    ).andExpect(request().asyncStarted()).andReturn();
+    MockHttpServletResponse response = mvc.perform(asyncDispatch(result))
+        .andReturn().getResponse();
+
+    assertEquals(HttpStatus.OK.value(), response.getStatus());
+    assertEquals(APPLICATION_JSON_UTF8.toString(), response.getContentType());
+    assertEquals(objectMapper.writeValueAsString(sampleResponse),
+        response.getContentAsString());
+    verify(restaurantService, never())
+        .findAllRestaurantsCloseBy(any(GetRestaurantsRequest.class), any(LocalTime.class));
+  }
+
   @Test
   public void invalidLatitudeResultsInBadHttpRequest() throws Exception {
     URI uri = UriComponentsBuilder
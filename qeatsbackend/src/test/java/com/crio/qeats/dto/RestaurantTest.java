@@ -7,8 +7,16 @@
 
 package com.crio.qeats.dto;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import org.json.JSONException;
 import org.junit.jupiter.api.Test;
 import org.skyscreamer.jsonassert.JSONAssert;
@@ -40,4 +48,40 @@ class RestaurantTest {
     actualJsonString = new ObjectMapper().writeValueAsString(restaurant);
     JSONAssert.assertEquals(jsonString, actualJsonString, true);
   }
+
+  @Test
+  void copiesCarryEveryField() throws IllegalAccessException {
+    Restaurant restaurant = new Restaurant();
+    List<Field> fields = new ArrayList<>();
+    for (Field field : Restaurant.class.getDeclaredFields()) {
+      if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+        continue;
+      }
+      field.setAccessible(true);
+      field.set(restaurant, sampleValue(field, fields.size()));
+      fields.add(field);
+    }
+
+    Restaurant copy = new Restaurant(restaurant);
+
+    for (Field field : fields) {
+      assertEquals(field.get(restaurant), field.get(copy), field.getName());
+    }
+    assertNotSame(restaurant.getAttributes(), copy.getAttributes());
+  }
+
+  // A value differing from the field's default, so that a field the copy misses is noticed.
+  private static Object sampleValue(Field field, int index) {
+    Class<?> type = field.getType();
+    if (type == String.class) {
+      return field.getName();
+    } else if (type == Double.class) {
+      return 10.0 + index;
+    } else if (type == int.class) {
+      return 100 + index;
+    } else if (type == List.class) {
+      return new ArrayList<>(Collections.singletonList(field.getName()));
+    }
+    throw new IllegalStateException("No sample value for " + field.getName() + " of " + type);
+  }
 }
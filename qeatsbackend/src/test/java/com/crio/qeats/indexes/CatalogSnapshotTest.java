@@ -0,0 +1,126 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import ch.hsr.geohash.GeoHash;
+import com.crio.qeats.dto.Item;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class CatalogSnapshotTest {
+
+  @Test
+  void searchRanksEverySourceInOnePass() {
+    List<RestaurantEntity> restaurants = Arrays.asList(
+        restaurant("0", "Biryani House", "Mughlai"),
+        restaurant("1", "Paradise", "Biryani Specials"),
+        restaurant("2", "Meghana Foods", "Andhra"),
+        restaurant("3", "BIRYANI", "Hyderabadi"),
+        restaurant("4", "Spice Hut", "North Indian"),
+        restaurant("5", "Dosa Corner", "South Indian"),
+        restaurant("6", "Biryani Point", "Mughlai"),
+        restaurant("7", "Pizza Place", "Italian"));
+    List<MenuEntity> menus = Arrays.asList(
+        menu("2", item("Biryani", "Spicy")),
+        menu("4", item("Chicken Biryani", "Spicy")),
+        menu("5", item("Pulao", "Biryani rice")),
+        menu("6", item("Biryani", "Spicy")),
+        menu("7", item("Margherita", "Cheesy")));
+    CatalogSnapshot catalog = new CatalogSnapshot(restaurants, menus, 5.0);
+
+    // Exact name, partial name, cuisine, exact item, partial item, item attribute; restaurant
+    // 6 matches twice and is listed at its best rank only.
+    assertEquals(Arrays.asList("3", "0", "6", "1", "2", "4", "5"),
+        restaurantIds(catalog.search("biryani", null)));
+
+    BitSet eligible = new BitSet();
+    eligible.set(1, 8);
+    assertEquals(Arrays.asList("3", "6", "1", "2", "4", "5"),
+        restaurantIds(catalog.search("biryani", eligible)));
+
+    assertEquals(Arrays.asList("2", "4", "6"), restaurantIds(catalog.search("spicy", null)));
+    assertEquals(Collections.emptyList(), restaurantIds(catalog.search("sushi", null)));
+  }
+
+  @Test
+  void searchSimilarToleratesTyposInEveryWord() {
+    List<RestaurantEntity> restaurants = Arrays.asList(
+        restaurant("0", "Biryani House", "Mughlai"),
+        restaurant("1", "Dosa Corner", "South Indian"),
+        restaurant("2", "Meghana Foods", "Andhra"));
+    List<MenuEntity> menus = Arrays.asList(
+        menu("2", item("Chicken Biryani", "Spicy")),
+        menu("1", item("Masala Dosa", "Crispy")));
+    CatalogSnapshot catalog = new CatalogSnapshot(restaurants, menus, 5.0);
+
+    assertEquals(Collections.emptyList(), restaurantIds(catalog.search("biryni", null)));
+    assertEquals(Arrays.asList("0", "2"), restaurantIds(catalog.searchSimilar("biryni", null)));
+    assertEquals(Arrays.asList("1"), restaurantIds(catalog.searchSimilar("dosaa", null)));
+    assertEquals(Arrays.asList("1"), restaurantIds(catalog.searchSimilar("south indan", null)));
+    assertEquals(Collections.emptyList(), restaurantIds(catalog.searchSimilar("sushi", null)));
+  }
+
+  @Test
+  void requestsFromACellShareItsCandidates() {
+    RestaurantEntity near = restaurant("0", "Biryani House", "Mughlai");
+    near.setOpensAt("10:00");
+    near.setClosesAt("22:00");
+    RestaurantEntity far = restaurant("1", "Paradise", "Mughlai");
+    far.setOpensAt("10:00");
+    far.setClosesAt("22:00");
+    far.setLatitude(21.0);
+    CatalogSnapshot catalog = new CatalogSnapshot(Arrays.asList(near, far), 5.0);
+
+    GeoHash cell = GeoHash.withCharacterPrecision(20.0, 30.0, 6);
+    int slot = OpenHoursIndex.slotOf(LocalTime.of(18, 1));
+    BitSet candidates = catalog.findRestaurantsServingCell(cell, 3.0, slot);
+
+    assertEquals(Collections.singletonList(0), candidates.stream().boxed()
+        .collect(Collectors.toList()));
+    assertSame(candidates, catalog.findRestaurantsServingCell(cell, 3.0, slot));
+    assertNotSame(candidates, catalog.findRestaurantsServingCell(cell, 3.0, slot + 1));
+    assertNotSame(candidates, catalog.findRestaurantsServingCell(cell, 5.0, slot));
+  }
+
+  private static List<String> restaurantIds(List<RestaurantEntity> restaurants) {
+    return restaurants.stream().map(RestaurantEntity::getRestaurantId)
+        .collect(Collectors.toList());
+  }
+
+  private static RestaurantEntity restaurant(String restaurantId, String name,
+      String attribute) {
+    RestaurantEntity restaurantEntity = new RestaurantEntity();
+    restaurantEntity.setId(restaurantId);
+    restaurantEntity.setRestaurantId(restaurantId);
+    restaurantEntity.setName(name);
+    restaurantEntity.setLatitude(20.0);
+    restaurantEntity.setLongitude(30.0);
+    restaurantEntity.setAttributes(new ArrayList<>(Collections.singletonList(attribute)));
+    return restaurantEntity;
+  }
+
+  private static MenuEntity menu(String restaurantId, Item... items) {
+    return new MenuEntity(null, restaurantId, Arrays.asList(items));
+  }
+
+  private static Item item(String name, String attribute) {
+    return new Item(null, name, name, "www.google.com", Collections.singletonList(attribute),
+        100);
+  }
+}
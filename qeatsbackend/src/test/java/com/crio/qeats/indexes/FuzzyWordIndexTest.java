@@ -0,0 +1,107 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.crio.qeats.indexes.FuzzyWordIndex.Source;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class FuzzyWordIndexTest {
+
+  @Test
+  void findsTheWordsABruteForceLevenshteinFinds() {
+    Random random = new Random(42);
+    List<String> dictionary = new ArrayList<>();
+    FuzzyWordIndex.Builder builder = new FuzzyWordIndex.Builder();
+    for (int i = 0; i < 300; i++) {
+      String word = randomWord(random, 1 + random.nextInt(8));
+      dictionary.add(word);
+      builder.add(Source.NAME, word, i);
+    }
+    FuzzyWordIndex index = builder.build();
+
+    for (int i = 0; i < 200; i++) {
+      String query = randomWord(random, 1 + random.nextInt(8));
+      for (int maxEdits = 0; maxEdits <= 2; maxEdits++) {
+        List<String> expected = new ArrayList<>();
+        for (String word : dictionary) {
+          if (distance(word, query) <= maxEdits && !expected.contains(word)) {
+            expected.add(word);
+          }
+        }
+        List<String> actual = index.findSimilarWords(query, maxEdits);
+        Collections.sort(expected);
+        Collections.sort(actual);
+        assertEquals(expected, actual, query + " within " + maxEdits);
+      }
+    }
+  }
+
+  @Test
+  void everyQueryWordMustMatchWithinItsTolerance() {
+    FuzzyWordIndex index = new FuzzyWordIndex.Builder()
+        .add(Source.NAME, "Biryani House", 0)
+        .add(Source.NAME, "Dosa Corner", 1)
+        .add(Source.ITEM_NAME, "Chicken Biryani", 2)
+        .add(Source.CUISINE, "Andhra", 3)
+        .build();
+
+    BitSet[] restaurants = index.findRestaurants("biryni");
+    assertEquals(bits(0), restaurants[Source.NAME.ordinal()]);
+    assertEquals(bits(2), restaurants[Source.ITEM_NAME.ordinal()]);
+    assertEquals(bits(), restaurants[Source.CUISINE.ordinal()]);
+
+    assertEquals(bits(1), index.findRestaurants("dosaa")[Source.NAME.ordinal()]);
+    assertEquals(bits(0), index.findRestaurants("Biriyani Hous")[Source.NAME.ordinal()]);
+    assertEquals(bits(), index.findRestaurants("biryani corner")[Source.NAME.ordinal()]);
+    // Too short to tolerate an edit.
+    assertEquals(bits(), index.findRestaurants("dos")[Source.NAME.ordinal()]);
+    assertEquals(Arrays.asList(0, 0, 1, 2), Arrays.asList(FuzzyWordIndex.maxEditsFor(3),
+        FuzzyWordIndex.maxEditsFor(0), FuzzyWordIndex.maxEditsFor(7),
+        FuzzyWordIndex.maxEditsFor(8)));
+  }
+
+  private static BitSet bits(int... ordinals) {
+    BitSet bits = new BitSet();
+    for (int ordinal : ordinals) {
+      bits.set(ordinal);
+    }
+    return bits;
+  }
+
+  private static String randomWord(Random random, int length) {
+    StringBuilder word = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      // A small alphabet so that many words are within a few edits of each other.
+      word.append((char) ('a' + random.nextInt(4)));
+    }
+    return word.toString();
+  }
+
+  private static int distance(String left, String right) {
+    int[][] distances = new int[left.length() + 1][right.length() + 1];
+    for (int i = 0; i <= left.length(); i++) {
+      for (int j = 0; j <= right.length(); j++) {
+        if (i == 0 || j == 0) {
+          distances[i][j] = i + j;
+        } else {
+          distances[i][j] = Math.min(distances[i - 1][j - 1]
+              + (left.charAt(i - 1) == right.charAt(j - 1) ? 0 : 1),
+              Math.min(distances[i - 1][j], distances[i][j - 1]) + 1);
+        }
+      }
+    }
+    return distances[left.length()][right.length()];
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.crio.qeats.utils.GeoUtils;
+import java.util.BitSet;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class GeoHashGridIndexTest {
+
+  @Test
+  void findsOnlyRestaurantsStrictlyWithinRadius() {
+    double[] latitudes = {20.027, 20.0269, 20.015, 20.8, 20.78};
+    double[] longitudes = {30.0, 30.00, 30.015, 30.1, 30.09};
+    GeoHashGridIndex index = new GeoHashGridIndex(latitudes, longitudes, 5.0);
+
+    BitSet result = new BitSet();
+    index.findWithinRadius(20.0, 30.0, 3.0, result);
+
+    assertEquals(2, result.cardinality());
+    assertEquals(true, result.get(1));
+    assertEquals(true, result.get(2));
+  }
+
+  @Test
+  void matchesBruteForceScan() {
+    Random random = new Random(42);
+    int size = 5000;
+    double[] latitudes = new double[size];
+    double[] longitudes = new double[size];
+    for (int i = 0; i < size; i++) {
+      latitudes[i] = 12.9 + random.nextDouble() - 0.5;
+      longitudes[i] = 77.6 + random.nextDouble() - 0.5;
+    }
+    GeoHashGridIndex index = new GeoHashGridIndex(latitudes, longitudes, 5.0);
+
+    for (int query = 0; query < 50; query++) {
+      double latitude = 12.9 + random.nextDouble() - 0.5;
+      double longitude = 77.6 + random.nextDouble() - 0.5;
+      double radius = query % 2 == 0 ? 3.0 : 5.0;
+
+      BitSet expected = new BitSet();
+      for (int i = 0; i < size; i++) {
+        if (GeoUtils.findDistanceInKm(latitude, longitude, latitudes[i], longitudes[i])
+            < radius) {
+          expected.set(i);
+        }
+      }
+      BitSet actual = new BitSet();
+      index.findWithinRadius(latitude, longitude, radius, actual);
+
+      assertEquals(expected, actual);
+    }
+  }
+
+  @Test
+  void wrapsAroundTheAntimeridian() {
+    double[] latitudes = {0.0, 0.0};
+    double[] longitudes = {179.99, -179.99};
+    GeoHashGridIndex index = new GeoHashGridIndex(latitudes, longitudes, 5.0);
+
+    BitSet result = new BitSet();
+    index.findWithinRadius(0.0, 179.999, 5.0, result);
+
+    assertEquals(2, result.cardinality());
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.crio.qeats.utils.OpeningHoursUtils;
+import java.time.LocalTime;
+import java.util.BitSet;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class OpenHoursIndexTest {
+
+  @Test
+  void classifiesSlotsAroundOpeningAndClosingTimes() {
+    int opensAt = OpeningHoursUtils.toMinuteOfDay("18:00");
+    int closesAt = OpeningHoursUtils.toMinuteOfDay("23:10");
+    int slotAtSix = OpenHoursIndex.slotOf(LocalTime.of(18, 0));
+    int slotAtEleven = OpenHoursIndex.slotOf(LocalTime.of(23, 0));
+
+    // Closed at 18:00 sharp, open right after.
+    assertFalse(OpenHoursIndex.isOpenThroughoutSlot(opensAt, closesAt, slotAtSix));
+    assertTrue(OpenHoursIndex.isOpenDuringSlot(opensAt, closesAt, slotAtSix));
+    assertTrue(OpenHoursIndex.isOpenThroughoutSlot(opensAt, closesAt, slotAtSix + 1));
+    assertFalse(OpenHoursIndex.isOpenDuringSlot(opensAt, closesAt, slotAtSix - 1));
+
+    assertFalse(OpenHoursIndex.isOpenThroughoutSlot(opensAt, closesAt, slotAtEleven));
+    assertTrue(OpenHoursIndex.isOpenDuringSlot(opensAt, closesAt, slotAtEleven));
+    assertFalse(OpenHoursIndex.isOpenDuringSlot(opensAt, closesAt, slotAtEleven + 1));
+  }
+
+  @Test
+  void matchesExactCheckAtEveryMinute() {
+    Random random = new Random(7);
+    int size = 300;
+    int[] opensAt = new int[size];
+    int[] closesAt = new int[size];
+    for (int i = 0; i < size; i++) {
+      opensAt[i] = random.nextInt(OpeningHoursUtils.MINUTES_PER_DAY);
+      closesAt[i] = random.nextInt(OpeningHoursUtils.MINUTES_PER_DAY);
+    }
+    opensAt[0] = OpeningHoursUtils.UNKNOWN;
+    closesAt[1] = opensAt[1];
+    OpenHoursIndex index = new OpenHoursIndex(opensAt, closesAt);
+
+    for (int minute = 0; minute < OpeningHoursUtils.MINUTES_PER_DAY; minute++) {
+      for (LocalTime time : new LocalTime[] {LocalTime.of(minute / 60, minute % 60),
+          LocalTime.of(minute / 60, minute % 60, 30)}) {
+        BitSet candidates = new BitSet();
+        candidates.set(0, size);
+        index.retainOpen(candidates, time);
+        for (int i = 0; i < size; i++) {
+          assertEquals(OpeningHoursUtils.isOpen(opensAt[i], closesAt[i], time),
+              candidates.get(i), "restaurant " + i + " at " + time);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.MenuRepository;
+import com.crio.qeats.repositories.RestaurantRepository;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class RestaurantCatalogTest {
+
+  private final RestaurantRepository restaurantRepository = mock(RestaurantRepository.class);
+
+  private RestaurantCatalog restaurantCatalog;
+
+  @BeforeEach
+  void setup() {
+    restaurantCatalog = new RestaurantCatalog();
+    ReflectionTestUtils.setField(restaurantCatalog, "restaurantRepository",
+        restaurantRepository);
+    ReflectionTestUtils.setField(restaurantCatalog, "menuRepository",
+        mock(MenuRepository.class));
+    ReflectionTestUtils.setField(restaurantCatalog, "gridCellSizeInKms", 5.0);
+    ReflectionTestUtils.setField(restaurantCatalog, "refreshDelayInMs", 0L);
+    restaurantCatalog.initRefresher();
+  }
+
+  @AfterEach
+  void teardown() {
+    restaurantCatalog.shutdownRefresher();
+  }
+
+  @Test
+  void aSlowRefreshDoesNotReplaceASnapshotLoadedAfterAWrite() throws Exception {
+    CountDownLatch refreshLoading = new CountDownLatch(1);
+    CountDownLatch releaseRefresh = new CountDownLatch(1);
+    AtomicInteger loads = new AtomicInteger();
+    when(restaurantRepository.findAll()).thenAnswer(invocation -> {
+      switch (loads.incrementAndGet()) {
+        case 1:
+          return restaurants("Before");
+        case 2:
+          // The background refresh, reading the collection before the write below.
+          refreshLoading.countDown();
+          releaseRefresh.await(5, TimeUnit.SECONDS);
+          return restaurants("Before");
+        default:
+          return restaurants("After");
+      }
+    });
+    restaurantCatalog.getSnapshot();
+
+    CompletableFuture<CatalogSnapshot> refresh = restaurantCatalog.refreshLater();
+    assertTrue(refreshLoading.await(5, TimeUnit.SECONDS));
+    restaurantCatalog.invalidate();
+    assertEquals("After", restaurantCatalog.getSnapshot().getRestaurant(0).getName());
+    releaseRefresh.countDown();
+
+    // Done once the refresh scheduled by the write replaced the snapshot in turn.
+    assertEquals("After", refresh.get(5, TimeUnit.SECONDS).getRestaurant(0).getName());
+    assertEquals("After", restaurantCatalog.getSnapshot().getRestaurant(0).getName());
+  }
+
+  private static List<RestaurantEntity> restaurants(String name) {
+    RestaurantEntity restaurantEntity = new RestaurantEntity();
+    restaurantEntity.setRestaurantId("1");
+    restaurantEntity.setName(name);
+    restaurantEntity.setLatitude(20.0);
+    restaurantEntity.setLongitude(30.0);
+    return Collections.singletonList(restaurantEntity);
+  }
+}
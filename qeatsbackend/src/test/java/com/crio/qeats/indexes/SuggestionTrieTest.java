@@ -0,0 +1,78 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class SuggestionTrieTest {
+
+  @Test
+  void completesWordStartsMostPopularFirst() {
+    SuggestionTrie trie = new SuggestionTrie.Builder()
+        .add("Biryani House", 0)
+        .add("Chicken Biryani", 1)
+        .add("Chicken Biryani", 2)
+        .add("chicken biryani", 3)
+        .add("Biryani", 1)
+        .add("Bisibele Bath", 4)
+        .add("Andhra", 4)
+        .build();
+
+    // Offered by 3, 1 and 1 restaurants; ties in alphabetical order.
+    assertEquals(Arrays.asList("Chicken Biryani", "Biryani", "Biryani House"),
+        trie.complete("BIR", null, 10));
+    assertEquals(Arrays.asList("Chicken Biryani", "Biryani", "Biryani House", "Bisibele Bath"),
+        trie.complete("bi", null, 10));
+    assertEquals(Arrays.asList("Chicken Biryani", "Biryani"), trie.complete("bi", null, 2));
+    assertEquals(Collections.singletonList("Biryani House"), trie.complete("hou", null, 10));
+    assertEquals(Collections.emptyList(), trie.complete("iryani", null, 10));
+    assertEquals(Collections.emptyList(), trie.complete(" ", null, 10));
+  }
+
+  @Test
+  void keepsOnlyTermsOfferedByEligibleRestaurants() {
+    SuggestionTrie trie = new SuggestionTrie.Builder()
+        .add("Biryani House", 0)
+        .add("Chicken Biryani", 1)
+        .add("Chicken Biryani", 2)
+        .add("Biryani", 3)
+        .build();
+
+    BitSet eligible = new BitSet();
+    eligible.set(0);
+    eligible.set(3);
+    assertEquals(Arrays.asList("Biryani", "Biryani House"), trie.complete("bir", eligible, 10));
+    assertEquals(Collections.emptyList(), trie.complete("chi", eligible, 10));
+  }
+
+  @Test
+  void findsEligibleTermsRankedBelowTheKeptCompletions() {
+    SuggestionTrie.Builder builder = new SuggestionTrie.Builder();
+    // More popular terms than a node keeps, none of them offered nearby.
+    for (int i = 0; i < SuggestionTrie.MAX_COMPLETIONS_PER_PREFIX + 8; i++) {
+      builder.add("Biryani " + i, 100 + i);
+      builder.add("Biryani " + i, 200 + i);
+    }
+    SuggestionTrie trie = builder
+        .add("Biryani Corner", 1)
+        .add("Chicken Biryani", 2)
+        .build();
+
+    BitSet eligible = new BitSet();
+    eligible.set(1);
+    eligible.set(2);
+    assertEquals(Arrays.asList("Biryani Corner", "Chicken Biryani"),
+        trie.complete("bir", eligible, 10));
+    assertEquals(Collections.singletonList("Biryani Corner"),
+        trie.complete("biryani c", eligible, 10));
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.indexes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.crio.qeats.utils.TextNormalizer;
+import java.util.BitSet;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class TrigramIndexTest {
+
+  @Test
+  void findsCaseInsensitiveSubstrings() {
+    TrigramIndex index = new TrigramIndex(
+        new String[] {"A2B", "A2B Adyar Ananda Bhavan", null, "abcab", "Meghana Foods"});
+
+    assertEquals(bits(0, 1), index.findContaining("a2b"));
+    assertEquals(bits(1), index.findContaining("ANANDA"));
+    assertEquals(bits(1, 4), index.findContaining("an"));
+    // Shares the trigrams of "abcab" without being part of it.
+    assertEquals(bits(), index.findContaining("cabc"));
+    assertEquals(bits(), index.findContaining("xyz"));
+    assertEquals(bits(), index.findContaining(""));
+
+    assertTrue(index.isEqual(0, "a2b"));
+    assertFalse(index.isEqual(1, "a2b"));
+    assertFalse(index.isEqual(2, "a2b"));
+    assertTrue(index.isEqualFolded(0, TrigramIndex.fold(" A2B ")));
+    assertEquals(bits(0, 1), index.findContainingFolded(TrigramIndex.fold("A2B")));
+  }
+
+  @Test
+  void matchesStringContains() {
+    Random random = new Random(42);
+    String[] texts = new String[500];
+    for (int i = 0; i < texts.length; i++) {
+      texts[i] = randomText(random, 4 + random.nextInt(20));
+    }
+    TrigramIndex index = new TrigramIndex(texts);
+
+    for (int query = 0; query < 2000; query++) {
+      String text = texts[random.nextInt(texts.length)];
+      int start = random.nextInt(text.length());
+      String searchString = random.nextBoolean()
+          ? text.substring(start, Math.min(text.length(), start + 1 + random.nextInt(6)))
+          : randomText(random, 1 + random.nextInt(5));
+
+      BitSet expected = new BitSet();
+      for (int i = 0; i < texts.length; i++) {
+        String normalizedSearchString = TextNormalizer.normalize(searchString);
+        if (!normalizedSearchString.isEmpty()
+            && TextNormalizer.normalize(texts[i]).contains(normalizedSearchString)) {
+          expected.set(i);
+        }
+      }
+      assertEquals(expected, index.findContaining(searchString), searchString);
+    }
+  }
+
+  private static String randomText(Random random, int length) {
+    // A small alphabet so that trigrams are shared across many texts.
+    String alphabet = "abcdABCD ";
+    StringBuilder text = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+    }
+    return text.toString();
+  }
+
+  private static BitSet bits(int... ordinals) {
+    BitSet bits = new BitSet();
+    for (int ordinal : ordinals) {
+      bits.set(ordinal);
+    }
+    return bits;
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.mappers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.models.RestaurantEntity;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.modelmapper.ModelMapper;
+
+/**
+ * Compares the entity to DTO mapping of a search response: ModelMapper as it was used, a new
+ * instance per response from the prototype bean, a single shared ModelMapper, and
+ * RestaurantMapper.
+ * Run with -Dqeats.benchmarks=true; results are printed, not asserted.
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "qeats.benchmarks", matches = "true")
+class RestaurantMapperBenchmarkTest {
+
+  private static final int WARMUP_ROUNDS = 2_000;
+  private static final int MEASURED_ROUNDS = 5_000;
+
+  @Test
+  void compareMappers() {
+    ModelMapper sharedModelMapper = new ModelMapper();
+    for (int size : new int[] {10, 100, 1000}) {
+      List<RestaurantEntity> restaurantEntities = restaurantEntities(size);
+      List<Restaurant> expected = RestaurantMapper.toRestaurants(restaurantEntities);
+      run("modelmapper/new", expected, restaurantEntities,
+          entities -> map(new ModelMapper(), entities));
+      run("modelmapper/shared", expected, restaurantEntities,
+          entities -> map(sharedModelMapper, entities));
+      run("handwritten", expected, restaurantEntities, RestaurantMapper::toRestaurants);
+    }
+  }
+
+  private void run(String name, List<Restaurant> expected,
+      List<RestaurantEntity> restaurantEntities,
+      Function<List<RestaurantEntity>, List<Restaurant>> mapper) {
+    assertEquals(expected, mapper.apply(restaurantEntities));
+    int rounds = Math.max(10, MEASURED_ROUNDS / restaurantEntities.size() * 10);
+    for (int i = 0; i < WARMUP_ROUNDS / 10; i++) {
+      mapper.apply(restaurantEntities);
+    }
+
+    long start = System.nanoTime();
+    for (int i = 0; i < rounds; i++) {
+      mapper.apply(restaurantEntities);
+    }
+    long nanos = (System.nanoTime() - start) / rounds;
+
+    System.out.printf("%-20s %5d restaurants: %8d us per response%n",
+        name, restaurantEntities.size(), nanos / 1000);
+  }
+
+  private static List<Restaurant> map(ModelMapper modelMapper,
+      List<RestaurantEntity> restaurantEntities) {
+    List<Restaurant> restaurants = new ArrayList<>(restaurantEntities.size());
+    for (RestaurantEntity restaurantEntity : restaurantEntities) {
+      restaurants.add(modelMapper.map(restaurantEntity, Restaurant.class));
+    }
+    return restaurants;
+  }
+
+  private static List<RestaurantEntity> restaurantEntities(int size) {
+    List<String> cuisines = Arrays.asList("North Indian", "South Indian", "Chinese", "Italian",
+        "Tamil", "Bengali", "Continental", "Desserts");
+    List<RestaurantEntity> restaurantEntities = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      RestaurantEntity restaurantEntity = new RestaurantEntity();
+      restaurantEntity.setId(String.valueOf(1000 + i));
+      restaurantEntity.setRestaurantId(String.valueOf(1000 + i));
+      restaurantEntity.setName("Restaurant " + i);
+      restaurantEntity.setCity("Hsr Layout");
+      restaurantEntity.setImageUrl(
+          "https://images.qeats.example/restaurants/" + (1000 + i) + ".jpg");
+      restaurantEntity.setLatitude(20.0 + i / 10000.0);
+      restaurantEntity.setLongitude(30.0 + i / 10000.0);
+      restaurantEntity.setOpensAt("10:00");
+      restaurantEntity.setClosesAt("23:00");
+      restaurantEntity.setAttributes(Arrays.asList(cuisines.get(i % cuisines.size()),
+          cuisines.get((i + 3) % cuisines.size())));
+      restaurantEntities.add(restaurantEntity);
+    }
+    return restaurantEntities;
+  }
+}
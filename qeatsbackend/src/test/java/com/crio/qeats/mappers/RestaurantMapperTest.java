@@ -0,0 +1,77 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.mappers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.utils.FixtureHelpers;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.LocalTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+
+class RestaurantMapperTest {
+
+  private static final String FIXTURES = "fixtures/exchanges";
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  void mapsRestaurantsAsModelMapperDid() throws IOException {
+    ModelMapper modelMapper = new ModelMapper();
+    for (RestaurantEntity restaurantEntity : listOfRestaurants()) {
+      Restaurant expected = modelMapper.map(restaurantEntity, Restaurant.class);
+      Restaurant restaurant = RestaurantMapper.toRestaurant(restaurantEntity);
+
+      assertEquals(expected, restaurant);
+      assertNotSame(restaurantEntity.getAttributes(), restaurant.getAttributes());
+      // Not part of equals, derived from opensAt and closesAt.
+      for (LocalTime time : new LocalTime[] {LocalTime.of(3, 0), LocalTime.of(18, 1)}) {
+        assertEquals(expected.isOpenAt(time), restaurant.isOpenAt(time));
+      }
+    }
+  }
+
+  @Test
+  void displayNamesAreDerivedFromTheName() throws IOException {
+    RestaurantEntity restaurantEntity = listOfRestaurants().get(0);
+    assertEquals("A2B", restaurantEntity.getName());
+
+    Restaurant restaurant = RestaurantMapper.toRestaurant(restaurantEntity);
+    assertEquals("A2B", restaurant.getName());
+    assertEquals("A?B", restaurant.getDisplayName());
+    restaurantEntity.setName("Café Coffee Day");
+    restaurant = RestaurantMapper.toRestaurant(restaurantEntity);
+    assertEquals("Café Coffee Day", restaurant.getName());
+    assertEquals("Caf? Coffee Day", restaurant.getDisplayName());
+    // Renaming the DTO derives its display name again.
+    restaurant.setName("Chai & Co");
+    assertEquals("Chai ? Co", restaurant.getDisplayName());
+  }
+
+  @Test
+  void keepsDefaultsForMissingValues() {
+    Restaurant restaurant = RestaurantMapper.toRestaurant(new RestaurantEntity());
+
+    assertTrue(restaurant.getAttributes().isEmpty());
+  }
+
+  private List<RestaurantEntity> listOfRestaurants() throws IOException {
+    String fixture =
+        FixtureHelpers.fixture(FIXTURES + "/initial_data_set_restaurants.json");
+
+    return objectMapper.readValue(fixture, new TypeReference<List<RestaurantEntity>>() {
+    });
+  }
+}
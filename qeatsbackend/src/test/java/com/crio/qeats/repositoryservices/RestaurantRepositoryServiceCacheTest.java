@@ -1,15 +1,22 @@
 package com.crio.qeats.repositoryservices;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import ch.hsr.geohash.GeoHash;
 import com.crio.qeats.QEatsApplication;
+import com.crio.qeats.cache.LocalRestaurantCache;
 import com.crio.qeats.configs.RedisConfiguration;
 import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.indexes.OpenHoursIndex;
+import com.crio.qeats.indexes.RestaurantCatalog;
 import com.crio.qeats.models.RestaurantEntity;
 import com.crio.qeats.repositories.RestaurantRepository;
 import com.crio.qeats.utils.FixtureHelpers;
@@ -17,12 +24,16 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
-import javax.inject.Provider;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -30,6 +41,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
 import redis.clients.jedis.Jedis;
 import redis.embedded.RedisServer;
 
@@ -49,7 +61,9 @@ class RestaurantRepositoryServiceCacheTest {
   @Autowired
   private ObjectMapper objectMapper;
   @Autowired
-  private Provider<ModelMapper> modelMapperProvider;
+  private RestaurantCatalog restaurantCatalog;
+  @Autowired
+  private LocalRestaurantCache localRestaurantCache;
 
   @Value("${spring.redis.port}")
   private int redisPort;
@@ -59,6 +73,12 @@ class RestaurantRepositoryServiceCacheTest {
   @MockBean
   private RestaurantRepository mockRestaurantRepository;
 
+  @BeforeEach
+  void setup() {
+    restaurantCatalog.invalidate();
+    localRestaurantCache.invalidateAll();
+  }
+
   @AfterEach
   void teardown() {
     redisConfiguration.destroyCache();
@@ -79,15 +99,124 @@ class RestaurantRepositoryServiceCacheTest {
         .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(18, 1), 3.0);
     allRestaurantsCloseBy = restaurantRepositoryService
         .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(18, 1), 3.0);
-    GeoHash geoHash = GeoHash.withCharacterPrecision(20.0, 30.0, 7);
+    GeoHash geoHash = GeoHash.withCharacterPrecision(20.0, 30.0, 6);
 
     verify(mockRestaurantRepository, times(1)).findAll();
-    assertNotNull(jedis.get(geoHash.toBase32()));
+    int slot = OpenHoursIndex.slotOf(LocalTime.of(18, 1));
+    String key = "nearby:" + geoHash.toBase32() + ":3.0:" + slot;
+    assertNotNull(jedis.get(key));
+    assertTrue(jedis.ttl(key) > 0);
+    jedis.close();
     assertEquals(2, allRestaurantsCloseBy.size());
     assertEquals("11", allRestaurantsCloseBy.get(0).getRestaurantId());
     assertEquals("12", allRestaurantsCloseBy.get(1).getRestaurantId());
   }
 
+  @Test
+  void neighboursInTheSameCellShareTheEntryAndGetExactResults() throws IOException {
+    when(mockRestaurantRepository.findAll()).thenReturn(listOfRestaurants());
+
+    // Both points fall in geohash-6 cell "set3f8", restaurant 11 is 2.99 km from the first
+    // and 3.44 km from the second.
+    List<Restaurant> fromFirstPoint = restaurantRepositoryService
+        .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(18, 1), 3.0);
+    List<Restaurant> fromSecondPoint = restaurantRepositoryService
+        .findAllRestaurantsCloseBy(19.996, 30.0, LocalTime.of(18, 1), 3.0);
+
+    verify(mockRestaurantRepository, times(1)).findAll();
+    assertEquals(2, fromFirstPoint.size());
+    assertEquals(1, fromSecondPoint.size());
+    assertEquals("12", fromSecondPoint.get(0).getRestaurantId());
+  }
+
+  @Test
+  void repeatedLookupsAreServedFromTheLocalCache() throws IOException {
+    when(mockRestaurantRepository.findAll()).thenReturn(listOfRestaurants());
+
+    restaurantRepositoryService
+        .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(18, 1), 3.0);
+    // Without the Redis entry, the second lookup can only be answered by the local cache.
+    try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      jedis.flushAll();
+    }
+    long hitsBefore = localRestaurantCache.getStats().hitCount();
+    List<Restaurant> allRestaurantsCloseBy = restaurantRepositoryService
+        .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(18, 1), 3.0);
+
+    verify(mockRestaurantRepository, times(1)).findAll();
+    assertEquals(hitsBefore + 1, localRestaurantCache.getStats().hitCount());
+    assertEquals(2, allRestaurantsCloseBy.size());
+  }
+
+  @Test
+  void concurrentMissesOnTheSameKeyQueryTheBackendOnce() throws Exception {
+    List<RestaurantEntity> restaurants = listOfRestaurants();
+    when(mockRestaurantRepository.findRestaurantsWithinRadius(anyDouble(), anyDouble(),
+        anyDouble())).thenAnswer(invocation -> {
+          Thread.sleep(200);
+          return restaurants;
+        });
+    ReflectionTestUtils.setField(restaurantRepositoryService, "nearbyBackend",
+        RestaurantRepositoryServiceImpl.NEARBY_BACKEND_MONGO);
+
+    int callers = 32;
+    ExecutorService executor = Executors.newFixedThreadPool(callers);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<List<Restaurant>>> results = new ArrayList<>();
+      for (int i = 0; i < callers; i++) {
+        results.add(executor.submit(() -> {
+          start.await();
+          return restaurantRepositoryService
+              .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(18, 1), 3.0);
+        }));
+      }
+      start.countDown();
+
+      for (Future<List<Restaurant>> result : results) {
+        assertEquals(2, result.get(10, TimeUnit.SECONDS).size());
+      }
+      verify(mockRestaurantRepository, times(1))
+          .findRestaurantsWithinRadius(anyDouble(), anyDouble(), anyDouble());
+    } finally {
+      executor.shutdownNow();
+      ReflectionTestUtils.setField(restaurantRepositoryService, "nearbyBackend", "grid");
+    }
+  }
+
+  @Test
+  void updatingARestaurantEvictsOnlyItsCachedEntries() throws IOException {
+    List<RestaurantEntity> restaurants = listOfRestaurants();
+    when(mockRestaurantRepository.findAll()).thenReturn(restaurants);
+
+    restaurantRepositoryService
+        .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(18, 1), 3.0);
+    restaurantRepositoryService
+        .findAllRestaurantsCloseBy(40.0, 50.0, LocalTime.of(18, 1), 3.0);
+    assertEquals(2, localRestaurantCache.size());
+    ReflectionTestUtils.setField(restaurantCatalog, "refreshDelayInMs", 0L);
+    try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      assertTrue(jedis.exists("restaurant:11"));
+      assertTrue(jedis.exists("restaurant:12"));
+
+      mongoTemplate.save(restaurants.get(1), "restaurants");
+
+      assertFalse(jedis.exists("restaurant:11"));
+      assertTrue(jedis.exists("restaurant:12"));
+      // Only the cell listing the restaurant is dropped, the catalog is rebuilt in the
+      // background.
+      assertEquals(1, localRestaurantCache.size());
+      verify(mockRestaurantRepository, timeout(10000).times(2)).findAll();
+    } finally {
+      ReflectionTestUtils.setField(restaurantCatalog, "refreshDelayInMs", 600000L);
+    }
+    List<Restaurant> allRestaurantsCloseBy = restaurantRepositoryService
+        .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(18, 1), 3.0);
+
+    verify(mockRestaurantRepository, times(2)).findAll();
+    assertEquals(2, allRestaurantsCloseBy.size());
+  }
+
   private List<RestaurantEntity> listOfRestaurants() throws IOException {
     String fixture =
         FixtureHelpers.fixture(FIXTURES + "/initial_data_set_restaurants.json");
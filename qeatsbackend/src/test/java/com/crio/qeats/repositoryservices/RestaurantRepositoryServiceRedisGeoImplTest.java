@@ -0,0 +1,207 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.crio.qeats.QEatsApplication;
+import com.crio.qeats.cache.BinaryRestaurantListCodec;
+import com.crio.qeats.cache.RedisCacheClient;
+import com.crio.qeats.configs.RedisConfiguration;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.indexes.CatalogSnapshot;
+import com.crio.qeats.indexes.RestaurantCatalog;
+import com.crio.qeats.mappers.RestaurantMapper;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.RestaurantRepository;
+import com.crio.qeats.utils.FixtureHelpers;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.clients.jedis.GeoCoordinate;
+import redis.clients.jedis.GeoRadiusResponse;
+import redis.clients.jedis.GeoUnit;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.params.geo.GeoRadiusParam;
+import redis.clients.util.SafeEncoder;
+
+@SpringBootTest(classes = {QEatsApplication.class}, properties = "qeats.nearby.engine=redis-geo")
+@DirtiesContext
+@ActiveProfiles("test")
+class RestaurantRepositoryServiceRedisGeoImplTest {
+
+  private static final String FIXTURES = "fixtures/exchanges";
+
+  @Autowired
+  private RestaurantRepositoryService restaurantRepositoryService;
+  @Autowired
+  private RedisConfiguration redisConfiguration;
+  @Autowired
+  private RestaurantCatalog restaurantCatalog;
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @MockBean
+  private RestaurantRepository mockRestaurantRepository;
+
+  @BeforeEach
+  void setup() throws IOException {
+    when(mockRestaurantRepository.findAll()).thenReturn(listOfRestaurants());
+    restaurantCatalog.invalidate();
+  }
+
+  @AfterEach
+  void teardown() {
+    redisConfiguration.destroyCache();
+  }
+
+  @Test
+  void redisGeoEngineIsPrimaryAndFindsOpenRestaurantsCloseBy() {
+    assertTrue(restaurantRepositoryService instanceof RestaurantRepositoryServiceRedisGeoImpl);
+
+    // Also holds on Redis without GEO support, through the fallback.
+    List<Restaurant> allRestaurantsCloseBy = restaurantRepositoryService
+        .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(18, 1), 3.0);
+
+    assertEquals(new HashSet<>(Arrays.asList("11", "12")), allRestaurantsCloseBy.stream()
+        .map(Restaurant::getRestaurantId).collect(Collectors.toSet()));
+  }
+
+  @Test
+  void restaurantsAreServedFromTheGeoSet() {
+    assumeTrue(supportsGeoCommands(), "Redis 3.2+ is needed for GEO commands");
+
+    List<Restaurant> allRestaurantsCloseBy = restaurantRepositoryService
+        .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(18, 1), 3.0);
+
+    try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      assertTrue(jedis.exists(RestaurantRepositoryServiceRedisGeoImpl.GEO_KEY));
+      assertFalse(jedis.hkeys(RestaurantRepositoryServiceRedisGeoImpl.BODIES_KEY).isEmpty());
+    }
+    // Nearest first: 12 is 2.29 km away, 11 is 2.99 km away.
+    assertEquals(2, allRestaurantsCloseBy.size());
+    assertEquals("12", allRestaurantsCloseBy.get(0).getRestaurantId());
+    assertEquals("11", allRestaurantsCloseBy.get(1).getRestaurantId());
+    assertTrue(restaurantRepositoryService
+        .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(12, 0), 3.0).isEmpty());
+  }
+
+  @Test
+  void catalogIsLoadedBeforeTakingARedisConnection() {
+    // Runs on any Redis version: the connection is a mock.
+    RestaurantEntity near = restaurant("1", 20.01);
+    RestaurantEntity farther = restaurant("2", 20.02);
+    BinaryRestaurantListCodec codec = new BinaryRestaurantListCodec(1024);
+    Jedis jedis = mock(Jedis.class);
+    Pipeline pipeline = mock(Pipeline.class);
+    RedisCacheClient redisCacheClient = mock(RedisCacheClient.class);
+    RestaurantCatalog catalog = mock(RestaurantCatalog.class);
+    AtomicBoolean inConnection = new AtomicBoolean();
+    when(redisCacheClient.execute(any())).thenAnswer(invocation -> {
+      inConnection.set(true);
+      try {
+        return invocation.<Function<Jedis, ?>>getArgument(0).apply(jedis);
+      } finally {
+        inConnection.set(false);
+      }
+    });
+    when(catalog.getSnapshot()).thenAnswer(invocation -> {
+      assertFalse(inConnection.get());
+      return new CatalogSnapshot(Arrays.asList(near, farther), 5.0);
+    });
+    when(jedis.georadius(any(byte[].class), anyDouble(), anyDouble(), anyDouble(),
+        any(GeoUnit.class), any(GeoRadiusParam.class)))
+        .thenReturn(Collections.emptyList())
+        .thenReturn(Arrays.asList(new GeoRadiusResponse(SafeEncoder.encode("1")),
+            new GeoRadiusResponse(SafeEncoder.encode("2"))));
+    when(jedis.exists(any(byte[].class))).thenReturn(false);
+    when(jedis.pipelined()).thenReturn(pipeline);
+    when(jedis.hmget(any(byte[].class), any(byte[].class), any(byte[].class)))
+        .thenReturn(Arrays.asList(
+            codec.encode(Collections.singletonList(RestaurantMapper.toRestaurant(near))),
+            codec.encode(Collections.singletonList(RestaurantMapper.toRestaurant(farther)))));
+    RestaurantRepositoryServiceRedisGeoImpl redisGeoImpl =
+        new RestaurantRepositoryServiceRedisGeoImpl();
+    ReflectionTestUtils.setField(redisGeoImpl, "redisCacheClient", redisCacheClient);
+    ReflectionTestUtils.setField(redisGeoImpl, "restaurantCatalog", catalog);
+    ReflectionTestUtils.setField(redisGeoImpl, "restaurantListCodec", codec);
+
+    List<Restaurant> allRestaurantsCloseBy = redisGeoImpl
+        .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(18, 1), 3.0);
+
+    assertEquals(Arrays.asList("1", "2"), allRestaurantsCloseBy.stream()
+        .map(Restaurant::getRestaurantId).collect(Collectors.toList()));
+    verify(catalog, times(1)).getSnapshot();
+    verify(pipeline, times(2)).hset(any(byte[].class), any(byte[].class), any(byte[].class));
+    verify(jedis).geoadd(any(byte[].class), ArgumentMatchers.<Map<byte[], GeoCoordinate>>argThat(
+        coordinates -> coordinates.size() == 2));
+  }
+
+  private boolean supportsGeoCommands() {
+    try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      Matcher version = Pattern.compile("redis_version:(\\d+)\\.(\\d+)")
+          .matcher(jedis.info("server"));
+      if (!version.find()) {
+        return false;
+      }
+      int major = Integer.parseInt(version.group(1));
+      int minor = Integer.parseInt(version.group(2));
+      return major > 3 || (major == 3 && minor >= 2);
+    }
+  }
+
+  private static RestaurantEntity restaurant(String restaurantId, double latitude) {
+    RestaurantEntity restaurantEntity = new RestaurantEntity();
+    restaurantEntity.setId(restaurantId);
+    restaurantEntity.setRestaurantId(restaurantId);
+    restaurantEntity.setName("Restaurant " + restaurantId);
+    restaurantEntity.setLatitude(latitude);
+    restaurantEntity.setLongitude(30.0);
+    restaurantEntity.setOpensAt("10:00");
+    restaurantEntity.setClosesAt("22:00");
+    return restaurantEntity;
+  }
+
+  private List<RestaurantEntity> listOfRestaurants() throws IOException {
+    String fixture =
+        FixtureHelpers.fixture(FIXTURES + "/initial_data_set_restaurants.json");
+
+    return objectMapper.readValue(fixture, new TypeReference<List<RestaurantEntity>>() {
+    });
+  }
+}
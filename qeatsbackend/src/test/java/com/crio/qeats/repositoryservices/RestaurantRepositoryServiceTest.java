@@ -9,16 +9,23 @@ package com.crio.qeats.repositoryservices;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.crio.qeats.QEatsApplication;
+import com.crio.qeats.cache.LocalRestaurantCache;
 import com.crio.qeats.configs.RedisConfiguration;
 import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.indexes.RestaurantCatalog;
+import com.crio.qeats.models.MenuEntity;
 import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.ItemRepository;
+import com.crio.qeats.repositories.MenuRepository;
 import com.crio.qeats.repositories.RestaurantRepository;
 import com.crio.qeats.utils.FixtureHelpers;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -26,13 +33,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import javax.inject.Provider;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.modelmapper.ModelMapper;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -40,6 +48,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
 import redis.embedded.RedisServer;
 
 @SpringBootTest(classes = {QEatsApplication.class})
@@ -55,15 +64,22 @@ public class RestaurantRepositoryServiceTest {
   private MongoTemplate mongoTemplate;
   @Autowired
   private ObjectMapper objectMapper;
-  @Autowired
-  private Provider<ModelMapper> modelMapperProvider;
 
   @MockBean
   private RestaurantRepository restaurantRepository;
+  @MockBean
+  private ItemRepository itemRepository;
+  @MockBean
+  private MenuRepository menuRepository;
 
   @Autowired
   private RedisConfiguration redisConfiguration;
 
+  @Autowired
+  private RestaurantCatalog restaurantCatalog;
+  @Autowired
+  private LocalRestaurantCache localRestaurantCache;
+
   @Value("${spring.redis.port}")
   private int redisPort;
 
@@ -83,6 +99,8 @@ public class RestaurantRepositoryServiceTest {
       mongoTemplate.save(restaurantEntity, "restaurants");
     }
     when(restaurantRepository.findAll()).thenReturn(allRestaurants);
+    restaurantCatalog.invalidate();
+    localRestaurantCache.invalidateAll();
   }
 
   @AfterEach
@@ -107,6 +125,40 @@ public class RestaurantRepositoryServiceTest {
   }
 
 
+  @Test
+  void restaurantsCloseByAreQueriedGeospatiallyWithTheMongoBackend() {
+    ReflectionTestUtils.setField(restaurantRepositoryService, "nearbyBackend", "mongo");
+    try {
+      doReturn(allRestaurants).when(restaurantRepository)
+          .findRestaurantsWithinRadius(any(), any(), any());
+
+      List<Restaurant> allRestaurantsCloseBy = restaurantRepositoryService
+          .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(18, 1), 3.0);
+
+      assertEquals(2, allRestaurantsCloseBy.size());
+      assertEquals("11", allRestaurantsCloseBy.get(0).getRestaurantId());
+      assertEquals("12", allRestaurantsCloseBy.get(1).getRestaurantId());
+      // The radius of the whole geohash cell, in radians.
+      ArgumentCaptor<Double> radius = ArgumentCaptor.forClass(Double.class);
+      verify(restaurantRepository, times(1))
+          .findRestaurantsWithinRadius(any(), any(), radius.capture());
+      assertTrue(radius.getValue() > 3.0 / 6371.0);
+      assertTrue(radius.getValue() < 5.0 / 6371.0);
+      verify(restaurantRepository, never()).findAll();
+    } finally {
+      ReflectionTestUtils.setField(restaurantRepositoryService, "nearbyBackend", "grid");
+    }
+  }
+
+  @Test
+  void restaurantsCloseByAreServedFromTheCatalogByDefault() {
+    List<Restaurant> allRestaurantsCloseBy = restaurantRepositoryService
+        .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(18, 1), 3.0);
+
+    assertEquals(2, allRestaurantsCloseBy.size());
+    verify(restaurantRepository, never()).findRestaurantsWithinRadius(any(), any(), any());
+  }
+
   @Test
   void noRestaurantsNearBy(@Autowired MongoTemplate mongoTemplate) {
     assertNotNull(mongoTemplate);
@@ -115,7 +167,6 @@ public class RestaurantRepositoryServiceTest {
     List<Restaurant> allRestaurantsCloseBy = restaurantRepositoryService
         .findAllRestaurantsCloseBy(20.9, 30.0, LocalTime.of(18, 00), 3.0);
 
-    ModelMapper modelMapper = modelMapperProvider.get();
     assertEquals(0, allRestaurantsCloseBy.size());
   }
 
@@ -127,7 +178,6 @@ public class RestaurantRepositoryServiceTest {
     List<Restaurant> allRestaurantsCloseBy = restaurantRepositoryService
         .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(17, 59), 3.0);
 
-    ModelMapper modelMapper = modelMapperProvider.get();
     assertEquals(0, allRestaurantsCloseBy.size());
   }
 
@@ -139,7 +189,6 @@ public class RestaurantRepositoryServiceTest {
     List<Restaurant> allRestaurantsCloseBy = restaurantRepositoryService
         .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(23, 01), 3.0);
 
-    ModelMapper modelMapper = modelMapperProvider.get();
     assertEquals(0, allRestaurantsCloseBy.size());
   }
 
@@ -172,11 +221,99 @@ public class RestaurantRepositoryServiceTest {
             LocalTime.of(20, 0), 5.0);
 
     assertEquals(2, foundRestaurantsList.size());
+    // Names as displayed, see DisplayNameUtils.
     assertEquals("A2B", foundRestaurantsList.get(0).getName());
     assertEquals("A2B Adyar Ananda Bhavan", foundRestaurantsList.get(1).getName());
   }
 
+  @Test
+  void nameSearchesQueryTheNormalizedFields() {
+    ReflectionTestUtils.setField(restaurantRepositoryService, "searchBackend", "mongo");
+    try {
+      doReturn(Optional.of(allRestaurants.subList(1, 2)))
+          .when(restaurantRepository).findRestaurantsByNameExact("a2b adyar");
+      doReturn(Optional.empty())
+          .when(restaurantRepository).findRestaurantsByPartialName("^a2b adyar");
+
+      List<Restaurant> foundRestaurantsList = restaurantRepositoryService
+          .findRestaurantsByName(20.0, 30.0, " A2B  Ádyar", LocalTime.of(18, 1), 3.0);
+
+      assertEquals(1, foundRestaurantsList.size());
+      verify(restaurantRepository).findRestaurantsByNameExact("a2b adyar");
+      verify(restaurantRepository).findRestaurantsByPartialName("^a2b adyar");
+    } finally {
+      ReflectionTestUtils.setField(restaurantRepositoryService, "searchBackend", "index");
+    }
+  }
+
+  @Test
+  void restaurantsChangedSinceTheSnapshotAreCheckedFromTheirOwnFields() throws IOException {
+    ReflectionTestUtils.setField(restaurantRepositoryService, "searchBackend", "mongo");
+    try {
+      // The catalog still has the restaurant at its old location.
+      restaurantCatalog.getSnapshot();
+      RestaurantEntity moved = listOfRestaurants().get(1);
+      moved.setLatitude(moved.getLatitude() + 1.0);
+      doReturn(Optional.of(Collections.singletonList(moved)))
+          .when(restaurantRepository).findRestaurantsByNameExact("a2b adyar");
+      doReturn(Optional.empty())
+          .when(restaurantRepository).findRestaurantsByPartialName("^a2b adyar");
+
+      List<Restaurant> foundRestaurantsList = restaurantRepositoryService
+          .findRestaurantsByName(20.0, 30.0, "A2B Adyar", LocalTime.of(18, 1), 3.0);
+
+      assertEquals(0, foundRestaurantsList.size());
+    } finally {
+      ReflectionTestUtils.setField(restaurantRepositoryService, "searchBackend", "index");
+    }
+  }
+
+  @Test
+  void restaurantsServingAnItemAreLoadedInOneQuery() {
+    List<MenuEntity> menus = Arrays.asList(
+        new MenuEntity("m1", "12", Collections.emptyList()),
+        new MenuEntity("m2", "11", Collections.emptyList()),
+        new MenuEntity("m3", "12", Collections.emptyList()));
+    doReturn(Optional.of(Arrays.asList("1", "2")))
+        .when(itemRepository).findItemIdsByAttributes("mughal");
+    doReturn(Optional.of(menus)).when(menuRepository).findMenusByItemsItemIdIn(any());
+    // Collection order, not menu order.
+    doReturn(Arrays.asList(allRestaurants.get(1), allRestaurants.get(2)))
+        .when(restaurantRepository).findRestaurantsByIdIn(any());
+
+    List<Restaurant> foundRestaurantsList = restaurantRepositoryService
+        .findRestaurantsByItemAttributes(20.0, 30.0, "Mughal", LocalTime.of(18, 1), 3.0);
 
+    verify(restaurantRepository, times(1)).findRestaurantsByIdIn(any());
+    verify(restaurantRepository, never()).findRestaurantById(any());
+    assertEquals(2, foundRestaurantsList.size());
+    assertEquals("12", foundRestaurantsList.get(0).getRestaurantId());
+    assertEquals("11", foundRestaurantsList.get(1).getRestaurantId());
+  }
+
+  @Test
+  void itemNamesArePartiallyMatchedFromTheIndex() throws IOException {
+    List<MenuEntity> menus = objectMapper.readValue(
+        FixtureHelpers.fixture(FIXTURES + "/initial_data_set_menus.json"),
+        new TypeReference<List<MenuEntity>>() {
+        });
+    when(menuRepository.findAll()).thenReturn(menus);
+    restaurantCatalog.invalidate();
+
+    List<Restaurant> foundRestaurantsList = restaurantRepositoryService
+        .findRestaurantsByItemName(20.0, 30.0, "fish briyani", LocalTime.of(18, 1), 3.0);
+    assertEquals(1, foundRestaurantsList.size());
+    assertEquals("12", foundRestaurantsList.get(0).getRestaurantId());
+
+    // Exact item name matches first, then partial ones.
+    foundRestaurantsList = restaurantRepositoryService
+        .findRestaurantsByItemName(20.0, 30.0, "RIYAN", LocalTime.of(18, 1), 3.0);
+    assertEquals(2, foundRestaurantsList.size());
+    foundRestaurantsList = restaurantRepositoryService
+        .findRestaurantsByItemName(20.0, 30.0, "Fish Briyani", LocalTime.of(18, 1), 3.0);
+    assertEquals("12", foundRestaurantsList.get(0).getRestaurantId());
+    verify(menuRepository, never()).findMenusByItemsItemIdIn(any());
+  }
 
   void searchedAttributesIsSubsetOfRetrievedRestaurantAttributes() {
   }
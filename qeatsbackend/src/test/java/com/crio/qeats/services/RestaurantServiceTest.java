@@ -7,23 +7,39 @@
 
 package com.crio.qeats.services;
 
+import static com.crio.qeats.exchanges.GetRestaurantsRequest.MAX_LIMIT;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import ch.hsr.geohash.GeoHash;
 import com.crio.qeats.QEatsApplication;
+import com.crio.qeats.cache.SearchResultCache;
 import com.crio.qeats.dto.Restaurant;
 import com.crio.qeats.exchanges.GetRestaurantsRequest;
 import com.crio.qeats.exchanges.GetRestaurantsResponse;
 import com.crio.qeats.repositoryservices.RestaurantRepositoryService;
+import com.crio.qeats.repositoryservices.RestaurantSearchEngine;
 import com.crio.qeats.utils.FixtureHelpers; 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -35,6 +51,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
 
 
 @SpringBootTest(classes = {QEatsApplication.class})
@@ -134,6 +151,105 @@ class RestaurantServiceTest {
     assertEquals(servingRadiusInKms.getValue().toString(), "5.0");
   }
 
+  @Test
+  void multiThreadedSearchAnswersWithTheLegsDoneByTheDeadline() throws Exception {
+    List<Restaurant> restaurantsByName = loadRestaurantsDuringNormalHours();
+    CountDownLatch interrupted = new CountDownLatch(1);
+    when(restaurantRepositoryServiceMock.findRestaurantsByName(any(Double.class),
+        any(Double.class), any(String.class), any(LocalTime.class), any(Double.class)))
+        .thenAnswer(invocation -> {
+          try {
+            Thread.sleep(1000);
+          } catch (InterruptedException e) {
+            interrupted.countDown();
+            throw e;
+          }
+          return restaurantsByName;
+        });
+    when(restaurantRepositoryServiceMock.findRestaurantsByAttributes(any(Double.class),
+        any(Double.class), any(String.class), any(LocalTime.class), any(Double.class)))
+        .thenReturn(loadRestaurantsSearchedByAttributes());
+    ReflectionTestUtils.setField(restaurantService, "searchThreads", 4);
+    ReflectionTestUtils.setField(restaurantService, "searchQueueSize", 4);
+    ReflectionTestUtils.setField(restaurantService, "searchDeadlineInMs", 100L);
+    restaurantService.initSearchExecutor();
+    try {
+      GetRestaurantsRequest getRestaurantsRequest = new GetRestaurantsRequest(20.0, 30.0);
+      getRestaurantsRequest.setSearchFor("Test");
+      GetRestaurantsResponse searchResults = restaurantService
+          .findRestaurantsBySearchQueryMt(getRestaurantsRequest, LocalTime.of(22, 0));
+
+      assertTrue(searchResults.isPartial());
+      assertEquals(loadRestaurantsSearchedByAttributes(), searchResults.getRestaurants());
+      // The late leg is cancelled instead of holding its thread.
+      assertTrue(interrupted.await(500, TimeUnit.MILLISECONDS));
+
+      ReflectionTestUtils.setField(restaurantService, "searchDeadlineInMs", 0L);
+      searchResults = restaurantService
+          .findRestaurantsBySearchQueryMt(getRestaurantsRequest, LocalTime.of(22, 0));
+
+      assertFalse(searchResults.isPartial());
+      assertEquals(4, searchResults.getRestaurants().size());
+    } finally {
+      restaurantService.shutdownSearchExecutor();
+    }
+  }
+
+  @Test
+  void multiThreadedSearchLeavesOutTheLegsASaturatedPoolRejects() {
+    when(restaurantRepositoryServiceMock.findRestaurantsByName(any(Double.class),
+        any(Double.class), any(String.class), any(LocalTime.class), any(Double.class)))
+        .thenAnswer(invocation -> {
+          Thread.sleep(200);
+          return new ArrayList<Restaurant>();
+        });
+    ReflectionTestUtils.setField(restaurantService, "searchThreads", 1);
+    ReflectionTestUtils.setField(restaurantService, "searchQueueSize", 1);
+    ReflectionTestUtils.setField(restaurantService, "searchDeadlineInMs", 0L);
+    restaurantService.initSearchExecutor();
+    try {
+      GetRestaurantsRequest getRestaurantsRequest = new GetRestaurantsRequest(20.0, 30.0);
+      getRestaurantsRequest.setSearchFor("Test");
+      GetRestaurantsResponse searchResults = restaurantService
+          .findRestaurantsBySearchQueryMt(getRestaurantsRequest, LocalTime.of(22, 0));
+
+      // One leg runs and one waits in the queue; the two others are rejected, not run by the
+      // request thread.
+      assertTrue(searchResults.isPartial());
+      verify(restaurantRepositoryServiceMock, never())
+          .findRestaurantsByItemName(any(Double.class), any(Double.class),
+              any(String.class), any(LocalTime.class), any(Double.class));
+      verify(restaurantRepositoryServiceMock, never())
+          .findRestaurantsByItemAttributes(any(Double.class), any(Double.class),
+              any(String.class), any(LocalTime.class), any(Double.class));
+    } finally {
+      restaurantService.shutdownSearchExecutor();
+    }
+  }
+
+  @Test
+  void partialPagesCarryNoCursor() throws IOException {
+    ResultPage page = new ResultPage(0, 1);
+    page.addAll(loadRestaurantsDuringNormalHours());
+
+    assertNotNull(page.toResponse(false).getNextCursor());
+    GetRestaurantsResponse partial = page.toResponse(true);
+    assertTrue(partial.isPartial());
+    assertNull(partial.getNextCursor());
+  }
+
+  @Test
+  void multiThreadedSearchNeedsItsOwnExecutor() {
+    GetRestaurantsRequest getRestaurantsRequest = new GetRestaurantsRequest(20.0, 30.0);
+    getRestaurantsRequest.setSearchFor("Test");
+
+    assertThrows(IllegalStateException.class, () -> restaurantService
+        .findRestaurantsBySearchQueryMt(getRestaurantsRequest, LocalTime.of(22, 0)));
+    verify(restaurantRepositoryServiceMock, never())
+        .findRestaurantsByName(any(Double.class), any(Double.class),
+            any(String.class), any(LocalTime.class), any(Double.class));
+  }
+
   @Test
   void peakHourFindRestaurantsSearchQuery() throws IOException {
     when(restaurantRepositoryServiceMock.findRestaurantsByName(any(Double.class),
@@ -191,7 +307,86 @@ class RestaurantServiceTest {
     assertEquals(0, allRestaurantsCloseBy.getRestaurants().size());
   }
 
-  
+  @Test
+  void searchesFromTheSameCellAndSlotShareOneCachedResult() throws IOException {
+    RestaurantSearchEngine searchEngine = mock(RestaurantSearchEngine.class);
+    SearchResultCache searchResultCache = new SearchResultCache();
+    ReflectionTestUtils.setField(searchResultCache, "maxEntries", 100L);
+    ReflectionTestUtils.setField(searchResultCache, "ttlInSeconds", 60L);
+    searchResultCache.initCache();
+    ReflectionTestUtils.setField(restaurantService, "restaurantSearchEngine", searchEngine);
+    ReflectionTestUtils.setField(restaurantService, "searchResultCache", searchResultCache);
+
+    List<String> restaurantIds = Arrays.asList("12", "11");
+    when(searchEngine.isEnabled()).thenReturn(true);
+    when(searchEngine.findRestaurantIdsBySearchQuery(any(GeoHash.class), eq("pizza"),
+        eq(5.0), any(Integer.class))).thenReturn(restaurantIds);
+    when(searchEngine.findRestaurantsByIds(eq(restaurantIds), any(Double.class),
+        any(Double.class), any(LocalTime.class), eq(5.0), eq(Integer.MAX_VALUE)))
+        .thenReturn(loadRestaurantsDuringNormalHours());
+
+    // A few meters apart, minutes apart, typed differently.
+    GetRestaurantsRequest getRestaurantsRequest = new GetRestaurantsRequest(20.0, 30.0);
+    getRestaurantsRequest.setSearchFor("Pizza");
+    restaurantService.findRestaurantsBySearchQuery(getRestaurantsRequest, LocalTime.of(22, 0));
+    getRestaurantsRequest = new GetRestaurantsRequest(20.0001, 30.0001);
+    getRestaurantsRequest.setSearchFor("  pizza ");
+    GetRestaurantsResponse response = restaurantService
+        .findRestaurantsBySearchQueryMt(getRestaurantsRequest, LocalTime.of(22, 10));
+
+    assertEquals(loadRestaurantsDuringNormalHours().size(), response.getRestaurants().size());
+    verify(searchEngine, times(1)).findRestaurantIdsBySearchQuery(any(GeoHash.class),
+        eq("pizza"), eq(5.0), any(Integer.class));
+    verify(searchEngine, times(2)).findRestaurantsByIds(eq(restaurantIds), any(Double.class),
+        any(Double.class), any(LocalTime.class), eq(5.0), eq(Integer.MAX_VALUE));
+    assertEquals(1, searchResultCache.getStats().hitCount());
+
+    searchResultCache.invalidateAll();
+    restaurantService.findRestaurantsBySearchQuery(getRestaurantsRequest, LocalTime.of(22, 10));
+    verify(searchEngine, times(2)).findRestaurantIdsBySearchQuery(any(GeoHash.class),
+        eq("pizza"), eq(5.0), any(Integer.class));
+  }
+
+  @Test
+  void searchPagesStopQueryingOnceFullAndResumeFromTheCursor() throws IOException {
+    List<Restaurant> nameResult = loadRestaurantsDuringNormalHours();
+    when(restaurantRepositoryServiceMock.findRestaurantsByName(any(Double.class),
+        any(Double.class), any(String.class), any(LocalTime.class), any(Double.class)))
+        .thenReturn(nameResult);
+
+    GetRestaurantsRequest getRestaurantsRequest = new GetRestaurantsRequest(20.0, 30.0);
+    getRestaurantsRequest.setSearchFor("Test");
+    getRestaurantsRequest.setLimit(nameResult.size() - 1);
+    GetRestaurantsResponse firstPage = restaurantService
+        .findRestaurantsBySearchQuery(getRestaurantsRequest, LocalTime.of(22, 0));
+
+    assertEquals(nameResult.subList(0, nameResult.size() - 1), firstPage.getRestaurants());
+    assertNotNull(firstPage.getNextCursor());
+    verify(restaurantRepositoryServiceMock, never()).findRestaurantsByAttributes(
+        any(Double.class), any(Double.class), any(String.class), any(LocalTime.class),
+        any(Double.class));
+
+    List<Restaurant> attributeResult = loadRestaurantsSearchedByAttributes();
+    when(restaurantRepositoryServiceMock.findRestaurantsByAttributes(any(Double.class),
+        any(Double.class), any(String.class), any(LocalTime.class), any(Double.class)))
+        .thenReturn(attributeResult);
+    getRestaurantsRequest.setCursor(firstPage.getNextCursor());
+    getRestaurantsRequest.setLimit(MAX_LIMIT);
+    GetRestaurantsResponse lastPage = restaurantService
+        .findRestaurantsBySearchQuery(getRestaurantsRequest, LocalTime.of(22, 0));
+
+    List<Restaurant> remaining = new ArrayList<>(nameResult.subList(nameResult.size() - 1,
+        nameResult.size()));
+    for (Restaurant restaurant : attributeResult) {
+      if (nameResult.stream().noneMatch(
+          named -> named.getRestaurantId().equals(restaurant.getRestaurantId()))) {
+        remaining.add(restaurant);
+      }
+    }
+    assertEquals(remaining, lastPage.getRestaurants());
+    assertNull(lastPage.getNextCursor());
+  }
+
   private List<Restaurant> loadRestaurantsDuringNormalHours() throws IOException {
     String fixture =
         FixtureHelpers.fixture(FIXTURES + "/normal_hours_list_of_restaurants.json");
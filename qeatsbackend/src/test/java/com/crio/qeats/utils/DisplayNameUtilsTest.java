@@ -0,0 +1,32 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+class DisplayNameUtilsTest {
+
+  @Test
+  void replacesEverythingButLettersAndSpaces() {
+    assertEquals("A?B Adyar Ananda Bhavan",
+        DisplayNameUtils.toDisplayName("A2B Adyar Ananda Bhavan"));
+    assertEquals("Caf? Coffee Day", DisplayNameUtils.toDisplayName("Café Coffee Day"));
+    assertEquals("?Tea? ? Co", DisplayNameUtils.toDisplayName("'Tea' & Co"));
+    assertEquals("", DisplayNameUtils.toDisplayName(""));
+    assertNull(DisplayNameUtils.toDisplayName(null));
+  }
+
+  @Test
+  void returnsNamesWithNothingToReplaceAsTheyAre() {
+    String name = "Udupi Bhavan";
+    assertSame(name, DisplayNameUtils.toDisplayName(name));
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import org.junit.jupiter.api.Test;
+
+class OpeningHoursUtilsTest {
+
+  @Test
+  public void parsesTimesIntoMinutesOfTheDay() {
+    assertEquals(0, OpeningHoursUtils.toMinuteOfDay("00:00"));
+    assertEquals(18 * 60, OpeningHoursUtils.toMinuteOfDay("18:00"));
+    assertEquals(23 * 60 + 59, OpeningHoursUtils.toMinuteOfDay("23:59"));
+    assertEquals(9 * 60 + 30, OpeningHoursUtils.toMinuteOfDay("09:30:00"));
+    assertEquals(OpeningHoursUtils.UNKNOWN, OpeningHoursUtils.toMinuteOfDay("25:00"));
+    assertEquals(OpeningHoursUtils.UNKNOWN, OpeningHoursUtils.toMinuteOfDay(null));
+  }
+
+  @Test
+  public void openingAndClosingInstantsAreExcluded() {
+    int opensAt = OpeningHoursUtils.toMinuteOfDay("18:00");
+    int closesAt = OpeningHoursUtils.toMinuteOfDay("23:00");
+
+    assertFalse(OpeningHoursUtils.isOpen(opensAt, closesAt, LocalTime.of(17, 59)));
+    assertFalse(OpeningHoursUtils.isOpen(opensAt, closesAt, LocalTime.of(18, 0)));
+    assertTrue(OpeningHoursUtils.isOpen(opensAt, closesAt, LocalTime.of(18, 0, 1)));
+    assertTrue(OpeningHoursUtils.isOpen(opensAt, closesAt, LocalTime.of(22, 59)));
+    assertFalse(OpeningHoursUtils.isOpen(opensAt, closesAt, LocalTime.of(23, 0)));
+    assertFalse(OpeningHoursUtils.isOpen(opensAt, closesAt, LocalTime.of(23, 1)));
+  }
+
+  @Test
+  public void restaurantsClosingAfterMidnightAreOpenAcrossIt() {
+    int opensAt = OpeningHoursUtils.toMinuteOfDay("20:00");
+    int closesAt = OpeningHoursUtils.toMinuteOfDay("02:00");
+
+    assertTrue(OpeningHoursUtils.isOpen(opensAt, closesAt, LocalTime.of(23, 30)));
+    assertTrue(OpeningHoursUtils.isOpen(opensAt, closesAt, LocalTime.of(1, 0)));
+    assertFalse(OpeningHoursUtils.isOpen(opensAt, closesAt, LocalTime.of(2, 30)));
+    assertFalse(OpeningHoursUtils.isOpen(opensAt, closesAt, LocalTime.of(12, 0)));
+  }
+}
@@ -0,0 +1,40 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+class TextNormalizerTest {
+
+  @Test
+  void foldsCaseAccentsAndWhitespace() {
+    assertEquals("creme brulee", TextNormalizer.normalize("  Crème\tBRÛLÉE "));
+    assertEquals("a2b adyar ananda bhavan",
+        TextNormalizer.normalize("A2B  Adyar Ananda\n Bhavan"));
+    assertEquals("", TextNormalizer.normalize("   "));
+    assertNull(TextNormalizer.normalize((String) null));
+    assertEquals(Arrays.asList("north indian", "cafe"),
+        TextNormalizer.normalize(Arrays.asList("North  Indian", null, "Café")));
+  }
+
+  @Test
+  void prefixRegexMatchesOnlyValuesStartingWithTheText() {
+    String regex = TextNormalizer.toPrefixRegex("Pizza (Veg) ");
+    assertEquals("^pizza \\(veg\\)", regex);
+    assertEquals(true, Pattern.compile(regex).matcher("pizza (veg) special").find());
+    assertEquals(false, Pattern.compile(regex).matcher("cheese pizza (veg)").find());
+    assertEquals(true, Pattern.compile(TextNormalizer.toPrefixRegex("a.b*")).matcher("a.b*c")
+        .find());
+    assertEquals(false, Pattern.compile(TextNormalizer.toPrefixRegex("a.b*")).matcher("axb")
+        .find());
+  }
+}